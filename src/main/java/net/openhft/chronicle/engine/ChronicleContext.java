@@ -20,6 +20,7 @@ package net.openhft.chronicle.engine;
 
 import net.openhft.chronicle.engine.old.ChronicleCluster;
 import net.openhft.chronicle.engine.old.ChronicleThreadPool;
+import net.openhft.chronicle.engine.queue.QueueView;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.FilePerKeyMap;
 import net.openhft.chronicle.set.ChronicleSet;
@@ -32,7 +33,7 @@ import java.util.logging.Logger;
  * Created by peter.lawrey on 09/10/14.
  */
 public interface ChronicleContext {
-    //ChronicleQueue getQueue(String name);
+    QueueView getQueue(String name) throws IOException;
 
     // get any map
     <K, V> ConcurrentMap<K, V> getMap(String name, Class<K> kClass, Class<V> vClass) throws IOException;
@@ -25,6 +25,7 @@ import net.openhft.chronicle.engine.Subscription;
 import net.openhft.chronicle.engine.client.internal.RemoteClientServiceLocator;
 import net.openhft.chronicle.engine.old.ChronicleCluster;
 import net.openhft.chronicle.engine.old.ChronicleThreadPool;
+import net.openhft.chronicle.engine.queue.QueueView;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.FilePerKeyMap;
 import net.openhft.chronicle.set.ChronicleSet;
@@ -52,10 +53,10 @@ public class RemoteTcpClientChronicleContext implements ChronicleContext, Closea
                 Wire.bytesToWire(wireClass));
     }
 
-  /*   @Override
-    public ChronicleQueue getQueue(String name) {
-        return remoteClientServiceLocator.getService(ChronicleQueue.class, name);
-    }*/
+    @Override
+    public QueueView getQueue(String name) {
+        return remoteClientServiceLocator.getService(QueueView.class, name);
+    }
 
     @Override
     public <K, V> ChronicleMap<K, V> getMap(String name, Class<K> kClass, Class<V> vClass) {
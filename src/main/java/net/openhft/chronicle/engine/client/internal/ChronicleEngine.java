@@ -18,6 +18,7 @@
 
 package net.openhft.chronicle.engine.client.internal;
 
+import net.openhft.chronicle.ChronicleQueueBuilder;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.engine.ChronicleContext;
 import net.openhft.chronicle.engine.FilePerKeyMapSubscription;
@@ -25,12 +26,17 @@ import net.openhft.chronicle.engine.MapEventListener;
 import net.openhft.chronicle.engine.Subscription;
 import net.openhft.chronicle.engine.old.ChronicleCluster;
 import net.openhft.chronicle.engine.old.ChronicleThreadPool;
+import net.openhft.chronicle.engine.queue.LocalQueueView;
+import net.openhft.chronicle.engine.queue.QueueView;
+import net.openhft.chronicle.engine.threads.AffinityThreadPool;
+import net.openhft.chronicle.engine.threads.WaitStrategy;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.EngineMap;
 import net.openhft.chronicle.map.FilePerKeyMap;
 import net.openhft.chronicle.map.MapWireConnectionHub;
 import net.openhft.chronicle.set.ChronicleSet;
 import net.openhft.chronicle.wire.TextWire;
+import net.openhft.chronicle.wire.Wire;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
@@ -49,8 +55,7 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
 
     private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(ChronicleEngine.class);
 
-    //    private final Map<String, ChronicleQueue> queues = Collections.synchronizedMap(new
-    //        LinkedHashMap<>());
+    private final Map<String, QueueView> queues = synchronizedMap(new LinkedHashMap<>());
     private final Map<String, Map<byte[], byte[]>> underlyingMaps
             = synchronizedMap(new LinkedHashMap<>());
     private final Map<String, ChronicleMap> maps = synchronizedMap(new LinkedHashMap<>());
@@ -61,6 +66,13 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
     private final Map<String, ChronicleThreadPool> threadPools = synchronizedMap(new LinkedHashMap<>());
     private final Map<String, ChronicleCluster> clusters = synchronizedMap(new LinkedHashMap<>());
     private MapWireConnectionHub mapWireConnectionHub = null;
+    private Class<? extends Wire> mapWireType = TextWire.class;
+    private String queueBasePath = System.getProperty("java.io.tmpdir") + "/chronicle-engine";
+
+    /**
+     * the system property holding the thread pools to create, see {@link #configureThreadPools(String)}
+     */
+    public static final String THREAD_POOLS_PROPERTY = "chronicle.engine.threadPools";
 
     public ChronicleEngine() {
         // todo config port and identifiers
@@ -73,17 +85,52 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
             LOG.error("", e);
         }
 
+        String threadPoolConfig = System.getProperty(THREAD_POOLS_PROPERTY);
+        if (threadPoolConfig != null)
+            configureThreadPools(threadPoolConfig);
     }
-   /*
-    public void setQueue(String name, ChronicleQueue chronicle) {
-        queues.put(name, chronicle);
+
+    public void setQueue(String name, QueueView queue) {
+        queues.put(name, queue);
     }
 
+    /**
+     * @param queueBasePath the directory queues created on demand are held in.
+     */
+    public void setQueueBasePath(String queueBasePath) {
+        this.queueBasePath = queueBasePath;
+    }
+
+    /**
+     * @return the queue of this name, creating an indexed chronicle under the queue base path if
+     * it doesn't exist.
+     * @throws IllegalArgumentException if the name could refer to a file outside the base path.
+     */
     @Override
-    public ChronicleQueue getQueue(String name) {
-        return queues.get(name);
+    public QueueView getQueue(String name) throws IOException {
+        QueueView queue = queues.get(name);
+        if (queue != null)
+            return queue;
+        // the name can come from a remote client.
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.contains(".."))
+            throw new IllegalArgumentException("Invalid queue name '" + name + "'");
+        return queues.computeIfAbsent(name, k -> {
+            try {
+                return new LocalQueueView(ChronicleQueueBuilder.indexed(queueBasePath + "/" + k).build());
+            } catch (IOException ioe) {
+                throw Jvm.rethrow(ioe);
+            }
+        });
+    }
+
+    /**
+     * @param mapWireType the wire used to encode the keys and values of object maps created after
+     *                    this call, TextWire by default.  BinaryWire is more compact but can't read
+     *                    a map written as TextWire, so only use it for new maps.
+     */
+    public void setMapWireType(Class<? extends Wire> mapWireType) {
+        this.mapWireType = mapWireType;
     }
-    */
 
     public void setMap(String name, ChronicleMap map) throws IOException {
         maps.put(name, map);
@@ -159,7 +206,7 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
                                 underlyingMap,
                                 kClass,
                                 vClass,
-                                TextWire.class);
+                                mapWireType);
                     } catch (IOException ioe) {
                         throw Jvm.rethrow(ioe);
                     }
@@ -229,6 +276,41 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
         threadPools.put(name, threadPool);
     }
 
+    /**
+     * creates and registers a pool of {@code threads} workers, each pinned to a reserved cpu.
+     *
+     * @throws IllegalStateException if a pool of this name already exists
+     */
+    public ChronicleThreadPool newThreadPool(String name, int threads, WaitStrategy waitStrategy) {
+        return threadPools.compute(name, (k, existing) -> {
+            if (existing != null)
+                throw new IllegalStateException("Thread pool " + name + " already exists");
+            return new AffinityThreadPool(name, threads, waitStrategy);
+        });
+    }
+
+    /**
+     * creates the named pools in a comma separated list of <code>name=threads[:waitStrategy][:unpinned]</code>
+     * e.g. <code>subscribers=2:BUSY_SPIN,background=1:PARK:unpinned</code>
+     *
+     * @throws IllegalStateException if a pool of one of these names already exists
+     */
+    public void configureThreadPools(String config) {
+        for (String pool : config.split(",")) {
+            if (pool.trim().isEmpty())
+                continue;
+            int eq = pool.indexOf('=');
+            if (eq < 0)
+                throw new IllegalArgumentException("Expected name=threads[:waitStrategy][:unpinned] but was " + pool);
+            String name = pool.substring(0, eq).trim();
+            threadPools.compute(name, (k, existing) -> {
+                if (existing != null)
+                    throw new IllegalStateException("Thread pool " + name + " already exists");
+                return AffinityThreadPool.of(name, pool.substring(eq + 1));
+            });
+        }
+    }
+
     @Override
     public ChronicleThreadPool getThreadPool(String name) {
         return threadPools.get(name);
@@ -254,6 +336,8 @@ public class ChronicleEngine implements ChronicleContext, Closeable {
         fpMaps.values().forEach(FilePerKeyMap::close);
         maps.values().forEach(ChronicleMap::close);
         chronStringMap.values().forEach(ChronicleMap::close);
+        threadPools.values().forEach(ChronicleThreadPool::shutdown);
+        queues.values().forEach(QueueView::close);
     }
 
     @Override
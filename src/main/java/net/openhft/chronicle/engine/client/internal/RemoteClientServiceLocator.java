@@ -21,6 +21,8 @@ package net.openhft.chronicle.engine.client.internal;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.IORuntimeException;
 import net.openhft.chronicle.core.MemoryUnit;
+import net.openhft.chronicle.engine.queue.ClientWiredStatelessQueue;
+import net.openhft.chronicle.engine.queue.QueueView;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.ClientWiredChronicleMapStatelessBuilder;
 import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
@@ -68,20 +70,21 @@ public class RemoteClientServiceLocator {
                 final Class kClass = args[0];
                 final Class vClass = args[1];
                 return (I) newMapInstance(name, kClass, vClass);
-            }/*    } else if (ChronicleQueue.class.isAssignableFrom(iClass)) {
-                return (I) newQueueInstance(name);
+
+            } else if (QueueView.class.isAssignableFrom(iClass)) {
+                return newQueueInstance(name);
             }
-*/
+
         } catch (IOException e) {
             throw new IORuntimeException(e);
         }
 
         throw new IllegalStateException("iClass=" + iClass + " not supported");
     }
-/*
+
     private <I> I newQueueInstance(String name) {
-        return (I) new ClientWiredChronicleQueueStateless(hub, name);
-    }*/
+        return (I) new ClientWiredStatelessQueue(hub, name);
+    }
 
     private <I, KI, VI> I mapInstance(Class<KI> kClass, Class<VI> vClass, String name)
             throws IOException {
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.engine.queue.QueueWireHandler.EventId;
+import net.openhft.chronicle.map.MapStatelessClient;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import net.openhft.chronicle.wire.ValueIn;
+import org.jetbrains.annotations.NotNull;
+
+import static net.openhft.chronicle.engine.queue.QueueWireHandler.EventId.*;
+import static net.openhft.chronicle.engine.queue.QueueWireHandler.Params.*;
+import static net.openhft.chronicle.wire.CoreFields.reply;
+
+/**
+ * A {@link QueueView} of a queue held by a remote engine.
+ */
+public class ClientWiredStatelessQueue extends MapStatelessClient<EventId> implements QueueView {
+
+    public ClientWiredStatelessQueue(@NotNull final ClientWiredStatelessTcpConnectionHub hub,
+                                     @NotNull final String channelName) {
+        super(channelName, hub, "queue", 0);
+    }
+
+    @Override
+    public long append(@NotNull byte[] excerpt) {
+        return proxyReturnWireConsumerInOut(append, reply, v -> v.bytes(excerpt), ValueIn::int64);
+    }
+
+    @Override
+    public long lastWrittenIndex() {
+        return proxyReturnLong(lastWrittenIndex);
+    }
+
+    @Override
+    public int read(long from, int max, @NotNull ExcerptConsumer consumer) {
+        final int[] count = {0};
+        proxyReturnWireConsumerInOut(tail, reply,
+                v -> v.marshallable(w -> {
+                    w.write(fromIndex).int64(from);
+                    w.write(maxExcerpts).int32(max);
+                }),
+                read -> {
+                    read.sequence(s -> {
+                        while (s.hasNextSequenceItem()) {
+                            s.marshallable(w -> {
+                                final long i = w.read(index).int64();
+                                consumer.accept(i, w.read(excerpt).bytes());
+                                count[0]++;
+                            });
+                        }
+                    });
+                    return count[0];
+                });
+        return count[0];
+    }
+
+    @Override
+    public void close() {
+        // the connection is owned by the hub.
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ExcerptAppender;
+import net.openhft.chronicle.ExcerptTailer;
+import net.openhft.chronicle.bytes.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A {@link QueueView} over a local Chronicle.
+ */
+public class LocalQueueView implements QueueView {
+    private final Chronicle chronicle;
+    private final ExcerptAppender appender;
+    private final ExcerptTailer tailer;
+
+    public LocalQueueView(@NotNull Chronicle chronicle) {
+        this.chronicle = chronicle;
+        try {
+            this.appender = chronicle.createAppender();
+            this.tailer = chronicle.createTailer();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    @Override
+    public long append(@NotNull byte[] excerpt) {
+        synchronized (appender) {
+            appender.startExcerpt(excerpt.length);
+            appender.write(excerpt);
+            appender.finish();
+            return appender.lastWrittenIndex();
+        }
+    }
+
+    @Override
+    public long lastWrittenIndex() {
+        return chronicle.lastWrittenIndex();
+    }
+
+    @Override
+    public int read(long fromIndex, int maxExcerpts, @NotNull ExcerptConsumer consumer) {
+        synchronized (tailer) {
+            if (fromIndex < 0 || !tailer.index(fromIndex))
+                return 0;
+            int count = 0;
+            do {
+                byte[] excerpt = new byte[(int) tailer.remaining()];
+                tailer.readFully(excerpt);
+                long index = tailer.index();
+                tailer.finish();
+                consumer.accept(index, excerpt);
+            } while (++count < maxExcerpts && tailer.nextIndex());
+            return count;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            chronicle.close();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads a {@link QueueView} sequentially.  Excerpts are fetched a batch at a time so a remote
+ * queue needs one round trip per batch rather than one per excerpt.
+ * <p>
+ * Not thread safe.
+ */
+public class QueueTailer {
+    private final QueueView queue;
+    private final int batchSize;
+    private final long[] indices;
+    private final byte[][] excerpts;
+    private int position = 0, count = 0;
+    private long nextIndex;
+    private long index = -1;
+
+    QueueTailer(@NotNull QueueView queue, long fromIndex, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize: " + batchSize);
+        this.queue = queue;
+        this.batchSize = batchSize;
+        this.nextIndex = fromIndex;
+        this.indices = new long[batchSize];
+        this.excerpts = new byte[batchSize][];
+    }
+
+    /**
+     * @return the next excerpt, or null if there is none yet.
+     */
+    @Nullable
+    public byte[] next() {
+        if (position >= count && !fetch())
+            return null;
+        index = indices[position];
+        byte[] excerpt = excerpts[position];
+        excerpts[position++] = null;
+        return excerpt;
+    }
+
+    private boolean fetch() {
+        position = count = 0;
+        queue.read(nextIndex, batchSize, (index, excerpt) -> {
+            indices[count] = index;
+            excerpts[count++] = excerpt;
+        });
+        if (count == 0)
+            return false;
+        nextIndex = indices[count - 1] + 1;
+        return true;
+    }
+
+    /**
+     * @return the index of the excerpt last returned by next(), or -1 if none has been.
+     */
+    public long index() {
+        return index;
+    }
+}
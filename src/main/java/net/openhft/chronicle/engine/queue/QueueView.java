@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * A queue of excerpts, each of which is a document encoded as bytes, addressed by index.  The
+ * same view is used for a local Chronicle and for a queue accessed over TCP.
+ */
+public interface QueueView extends Closeable {
+
+    /**
+     * @return the index the excerpt was written to.
+     */
+    long append(@NotNull byte[] excerpt);
+
+    long lastWrittenIndex();
+
+    /**
+     * reads up to {@code maxExcerpts} excerpts starting at {@code fromIndex}.
+     *
+     * @return the number of excerpts passed to the consumer, 0 if there is nothing at {@code
+     * fromIndex} yet.
+     */
+    int read(long fromIndex, int maxExcerpts, @NotNull ExcerptConsumer consumer);
+
+    /**
+     * @return a tailer which reads from {@code fromIndex} in batches of {@code batchSize}.
+     */
+    default QueueTailer createTailer(long fromIndex, int batchSize) {
+        return new QueueTailer(this, fromIndex, batchSize);
+    }
+
+    @Override
+    void close();
+
+    @FunctionalInterface
+    interface ExcerptConsumer {
+        void accept(long index, @NotNull byte[] excerpt);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.wire.*;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+import static net.openhft.chronicle.engine.queue.QueueWireHandler.EventId.*;
+import static net.openhft.chronicle.engine.queue.QueueWireHandler.Params.*;
+import static net.openhft.chronicle.wire.CoreFields.reply;
+import static net.openhft.chronicle.wire.WireOut.EMPTY;
+
+/**
+ * Serves a {@link QueueView} for the <code>?view=queue</code> csp.  A tail request is answered
+ * with a batch of excerpts in a single reply.
+ */
+public class QueueWireHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(QueueWireHandler.class);
+
+    /**
+     * the most excerpts returned by one tail request, regardless of what the client asks for.
+     */
+    public static final int MAX_BATCH = 1024;
+
+    public enum Params implements WireKey {
+        excerpt,
+        fromIndex,
+        maxExcerpts,
+        index
+    }
+
+    public enum EventId implements ParameterizeWireKey {
+        append(excerpt),
+        tail(fromIndex, maxExcerpts),
+        lastWrittenIndex;
+
+        private final WireKey[] params;
+
+        <P extends WireKey> EventId(P... params) {
+            this.params = params;
+        }
+
+        public <P extends WireKey> P[] params() {
+            return (P[]) this.params;
+        }
+    }
+
+    private final StringBuilder eventName = new StringBuilder();
+    private Wire inWire;
+    private Wire outWire;
+    private QueueView queue;
+    private long tid;
+
+    private final Consumer<WireIn> dataConsumer = new Consumer<WireIn>() {
+        @Override
+        public void accept(WireIn wireIn) {
+            final ValueIn valueIn = inWire.readEventName(eventName);
+
+            outWire.writeDocument(true, wire -> outWire.writeEventName(CoreFields.tid).int64(tid));
+
+            writeData(out -> {
+                if (append.contentEquals(eventName)) {
+                    outWire.writeEventName(reply).int64(queue.append(valueIn.bytes()));
+                    return;
+                }
+
+                if (tail.contentEquals(eventName)) {
+                    valueIn.marshallable(wire -> {
+                        final Params[] params = tail.params();
+                        final long from = wire.read(params[0]).int64();
+                        final int max = Math.min(MAX_BATCH, wire.read(params[1]).int32());
+
+                        outWire.writeEventName(reply).sequence(v ->
+                                queue.read(from, max, (i, excerpt) ->
+                                        v.marshallable(w -> {
+                                            w.write(index).int64(i);
+                                            w.write(Params.excerpt).bytes(excerpt);
+                                        })));
+                    });
+                    return;
+                }
+
+                if (lastWrittenIndex.contentEquals(eventName)) {
+                    outWire.writeEventName(reply).int64(queue.lastWrittenIndex());
+                    return;
+                }
+
+                throw new IllegalStateException("unsupported event=" + eventName);
+            });
+        }
+    };
+
+    public void process(@NotNull final Wire in,
+                        @NotNull final Wire out,
+                        @NotNull final QueueView queue,
+                        long tid) {
+        try {
+            this.inWire = in;
+            this.outWire = out;
+            this.queue = queue;
+            this.tid = tid;
+            dataConsumer.accept(in);
+        } catch (Exception e) {
+            LOG.error("", e);
+        }
+    }
+
+    /**
+     * write and exceptions and rolls back if no data was written
+     */
+    void writeData(@NotNull Consumer<WireOut> c) {
+        outWire.writeDocument(false, out -> {
+
+            final long position = outWire.bytes().position();
+            try {
+                c.accept(outWire);
+            } catch (Exception exception) {
+                outWire.bytes().position(position);
+                outWire.writeEventName(() -> "exception").throwable(exception);
+            }
+
+            // write 'reply : {} ' if no data was sent
+            if (position == outWire.bytes().position()) {
+                outWire.writeEventName(reply).marshallable(EMPTY);
+            }
+        });
+    }
+}
@@ -23,10 +23,11 @@ import net.openhft.chronicle.engine.client.internal.ChronicleEngine;
 import net.openhft.chronicle.engine.collection.CollectionWireHandler;
 import net.openhft.chronicle.engine.collection.CollectionWireHandlerProcessor;
 import net.openhft.chronicle.engine.map.MapWireHandler;
+import net.openhft.chronicle.engine.queue.QueueView;
+import net.openhft.chronicle.engine.queue.QueueWireHandler;
 import net.openhft.chronicle.network.WireTcpHandler;
 import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,7 @@ import java.util.function.Function;
 import static net.openhft.chronicle.core.Jvm.rethrow;
 import static net.openhft.chronicle.engine.server.internal.MapHandler.instance;
 import static net.openhft.chronicle.engine.utils.StringUtils.endsWith;
+import static net.openhft.chronicle.engine.utils.StringUtils.isEqual;
 import static net.openhft.chronicle.wire.CoreFields.cid;
 import static net.openhft.chronicle.wire.CoreFields.csp;
 
@@ -56,8 +58,8 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
     private final StringBuilder cspText = new StringBuilder();
     private final CollectionWireHandler<byte[], Set<byte[]>> keySetHandler;
 
-    @Nullable
-    private final WireHandler queueWireHandler;
+    private final QueueWireHandler queueWireHandler;
+    private QueueView queue;
     private final Map<Long, String> cidToCsp;
 
     @NotNull
@@ -78,7 +80,7 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
 
         this.mapWireHandler = new MapWireHandler<>(cidToCsp);
         this.keySetHandler = new CollectionWireHandlerProcessor<>();
-        this.queueWireHandler = null;
+        this.queueWireHandler = new QueueWireHandler();
         this.cidToCsp = cidToCsp;
         this.chronicleEngine = chronicleEngine;
         this.entrySetHandler = new CollectionWireHandlerProcessor<>();
@@ -103,7 +105,7 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
     private String serviceName;
     private long tid;
 
-    StringBuilder lastCsp;
+    final StringBuilder lastCsp = new StringBuilder();
     StringBuilder eventName = new StringBuilder();
 
     @NotNull
@@ -113,8 +115,9 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
             try {
                 readCsp(metaDataWire);
                 readTid(metaDataWire);
-                if (!cspText.equals(lastCsp)) {
-                    lastCsp = cspText;
+                if (!isEqual(cspText, lastCsp)) {
+                    lastCsp.setLength(0);
+                    lastCsp.append(cspText);
                     serviceName = serviceName(cspText);
                     if (endsWith(cspText, "?view=map") ||
                             endsWith(cspText, "?view=entrySet") ||
@@ -125,7 +128,14 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
                     else
                         mapHandler = null;
 
-                    map = mapHandler.getMap(chronicleEngine, serviceName);
+                    if (mapHandler != null) {
+                        map = mapHandler.getMap(chronicleEngine, serviceName);
+                        queue = null;
+
+                    } else if (endsWith(cspText, "?view=queue")) {
+                        map = null;
+                        queue = chronicleEngine.getQueue(serviceName);
+                    }
                 }
             } catch (Exception e) {
                 rethrow(e);
@@ -175,8 +185,8 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
                     }
                 }
 
-                if (endsWith(cspText, "?view=queue") && queueWireHandler != null) {
-                    queueWireHandler.process(in, out);
+                if (queue != null && endsWith(cspText, "?view=queue")) {
+                    queueWireHandler.process(in, out, queue, tid);
                 }
 
             } catch (Exception e) {
@@ -211,6 +221,7 @@ public class EngineWireHandler extends WireTcpHandler implements WireHandlers {
         } else if (cid.contentEquals(keyName)) {
             final long cid = read.int64();
             final CharSequence s = cidToCsp.get(cid);
+            cspText.setLength(0);
             cspText.append(s);
         }
     }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.threads;
+
+import net.openhft.affinity.AffinityLock;
+import net.openhft.chronicle.engine.old.ChronicleThreadPool;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of workers which each take a cpu from the reserved cpus (see the
+ * <code>affinity.reserved</code> system property) for as long as they run.  Idle workers poll the
+ * shared queue using the {@link WaitStrategy} given rather than blocking in the OS scheduler.
+ * <p>
+ * If there are no reserved cpus left, a worker runs unpinned.
+ * <p>
+ * A pool can be described as <code>threads[:waitStrategy][:unpinned]</code> e.g.
+ * <code>2:BUSY_SPIN</code>, see {@link #of(String, String)}.
+ */
+public class AffinityThreadPool extends AbstractExecutorService implements ChronicleThreadPool {
+    private static final Logger LOG = LoggerFactory.getLogger(AffinityThreadPool.class);
+
+    private final String name;
+    private final WaitStrategy waitStrategy;
+    private final boolean pinned;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final CountDownLatch terminated;
+    private volatile boolean shutdown = false;
+    private volatile boolean stopped = false;
+
+    public AffinityThreadPool(@NotNull String name, int threads, @NotNull WaitStrategy waitStrategy) {
+        this(name, threads, waitStrategy, true);
+    }
+
+    public AffinityThreadPool(@NotNull String name, int threads, @NotNull WaitStrategy waitStrategy, boolean pinned) {
+        if (threads < 1) throw new IllegalArgumentException("threads: " + threads);
+        this.name = name;
+        this.waitStrategy = waitStrategy;
+        this.pinned = pinned;
+        this.terminated = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(this::runWorker, name + "-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * @param spec <code>threads[:waitStrategy][:unpinned]</code>, the wait strategy is PARK by
+     *             default.
+     */
+    public static AffinityThreadPool of(@NotNull String name, @NotNull String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            int threads = Integer.parseInt(parts[0].trim());
+            WaitStrategy waitStrategy = parts.length > 1
+                    ? WaitStrategy.valueOf(parts[1].trim().toUpperCase())
+                    : WaitStrategy.PARK;
+            boolean pinned = parts.length <= 2 || !"unpinned".equalsIgnoreCase(parts[2].trim());
+            if (parts.length > 3 || (parts.length > 2 && pinned))
+                throw new IllegalArgumentException();
+            return new AffinityThreadPool(name, threads, waitStrategy, pinned);
+
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Thread pool " + name + " expected threads[:waitStrategy][:unpinned] but was " + spec, e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private void runWorker() {
+        AffinityLock lock = pinned ? AffinityLock.acquireLock() : null;
+        try {
+            while (!stopped) {
+                Runnable task = tasks.poll();
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        LOG.error("Task failed in " + Thread.currentThread().getName(), t);
+                    }
+
+                } else if (shutdown) {
+                    return;
+
+                } else {
+                    waitStrategy.idle();
+                }
+            }
+        } finally {
+            if (lock != null)
+                lock.release();
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        if (shutdown)
+            throw new RejectedExecutionException(name + " is shutdown");
+        tasks.add(command);
+        // the workers may have found the queue empty and exited since the check above, if the
+        // task is still there no one will run it.
+        if (shutdown && tasks.remove(command))
+            throw new RejectedExecutionException(name + " is shutdown");
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @NotNull
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        stopped = true;
+        List<Runnable> remaining = new ArrayList<>();
+        for (Runnable r; (r = tasks.poll()) != null; )
+            remaining.add(r);
+        // the workers stop after their current task, which is interrupted in case it is waiting.
+        workers.forEach(Thread::interrupt);
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "AffinityThreadPool{" +
+                "name='" + name + '\'' +
+                ", threads=" + workers.size() +
+                ", waitStrategy=" + waitStrategy +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Higher Frequency Trading
+ *
+ * http://www.higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.engine.threads;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What an idle worker does while waiting for the next task.
+ */
+public enum WaitStrategy {
+    /**
+     * never gives up the cpu, lowest latency, use only on isolated cores.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle() {
+        }
+    },
+    /**
+     * yields to other threads on the same core.
+     */
+    YIELD {
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+    },
+    /**
+     * parks the thread briefly, lowest cpu use, highest latency.
+     */
+    PARK {
+        @Override
+        public void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    static final long PARK_NANOS = 20_000;
+
+    public abstract void idle();
+}
@@ -29,6 +29,16 @@ public enum StringUtils {
         return true;
     }
 
+    public static boolean isEqual(@NotNull final CharSequence s1,
+                                  @NotNull final CharSequence s2) {
+        if (s1.length() != s2.length())
+            return false;
+        for (int i = 0; i < s1.length(); i++)
+            if (s1.charAt(i) != s2.charAt(i))
+                return false;
+        return true;
+    }
+
     public static boolean contains(@NotNull final CharSequence source,
                                    @NotNull final String token) {
         OUTER:
@@ -0,0 +1,72 @@
+package net.openhft.chronicle.engine2.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An asset name split once into its path and query string.  Instances are interned so repeatedly
+ * acquiring the same name costs a single hash lookup, up to <code>MAX_CACHED</code> names after
+ * which names are parsed each time and their strings aren't interned.
+ */
+public final class AssetPath {
+    // stop an application using unbounded distinct names from filling the heap.
+    static final int MAX_CACHED = 1 << 16;
+    private static final ConcurrentMap<String, AssetPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final String queryString;
+
+    private AssetPath(String path, String queryString) {
+        this.path = path;
+        this.queryString = queryString;
+    }
+
+    @NotNull
+    public static AssetPath of(@NotNull String name) {
+        AssetPath assetPath = CACHE.get(name);
+        if (assetPath != null)
+            return assetPath;
+        if (CACHE.size() >= MAX_CACHED)
+            return parse(name, false);
+        assetPath = parse(name, true);
+        AssetPath prev = CACHE.putIfAbsent(name, assetPath);
+        return prev == null ? assetPath : prev;
+    }
+
+    private static AssetPath parse(String name, boolean intern) {
+        int pos = name.indexOf('?');
+        String path = pos >= 0 ? name.substring(0, pos) : name;
+        String queryString = pos >= 0 ? name.substring(pos + 1) : "";
+        return intern
+                ? new AssetPath(path.intern(), queryString.intern())
+                : new AssetPath(path, queryString);
+    }
+
+    /**
+     * @return the name without the query string
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * @return the query string, or "" if there wasn't one
+     */
+    public String queryString() {
+        return queryString;
+    }
+
+    /**
+     * @return the parsed options of the query string
+     */
+    public QueryOptions options() {
+        return QueryOptions.of(queryString);
+    }
+
+    @Override
+    public String toString() {
+        return queryString.isEmpty() ? path : path + "?" + queryString;
+    }
+}
@@ -61,6 +61,10 @@ public class FactoryContext<I extends Assetted> {
         return queryString;
     }
 
+    public QueryOptions queryOptions() {
+        return QueryOptions.of(queryString);
+    }
+
     public String name() {
         return name;
     }
@@ -0,0 +1,205 @@
+package net.openhft.chronicle.engine2.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A condition on the key and value of an entry compiled from the terms of a query string, e.g.
+ * <code>where.price&gt;100&amp;where.venue=XLON</code>.  All the terms must match.
+ * <p>
+ * A condition is <code>where.field op value</code> where op is one of
+ * <code>= != &gt; &gt;= &lt; &lt;=</code>, other terms are options.  The field is
+ * <code>key</code>, <code>value</code> for the whole value, a Map value's entry, or a property of
+ * the value read by its getter or field.  Numbers are compared as numbers, anything else as text.
+ */
+public final class Filter {
+    public static final Filter ALL = new Filter(Collections.emptyList());
+
+    public static final String PREFIX = "where.";
+
+    private static final String[] OPERATORS = {">=", "<=", "!=", ">", "<", "="};
+    private static final Object NO_FIELD = new Object();
+    private static final ConcurrentMap<Class, ConcurrentMap<String, Function<Object, Object>>> ACCESSORS =
+            new ConcurrentHashMap<>();
+
+    private final List<Term> terms;
+
+    private Filter(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    @NotNull
+    static Filter compile(@NotNull String queryString) {
+        List<Term> terms = new ArrayList<>();
+        for (String part : queryString.split("&")) {
+            Term term = Term.parse(part.trim());
+            if (term != null)
+                terms.add(term);
+        }
+        return terms.isEmpty() ? ALL : new Filter(Collections.unmodifiableList(terms));
+    }
+
+    public boolean isAll() {
+        return terms.isEmpty();
+    }
+
+    public boolean test(Object key, @Nullable Object value) {
+        for (Term term : terms)
+            if (!term.test(key, value))
+                return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Filter" + terms;
+    }
+
+    static Object fieldOf(Object key, Object value, String name) {
+        if ("key".equals(name))
+            return key;
+        if ("value".equals(name))
+            return value;
+        if (value == null)
+            return NO_FIELD;
+        if (value instanceof Map)
+            return ((Map) value).containsKey(name) ? ((Map) value).get(name) : NO_FIELD;
+        return ACCESSORS.computeIfAbsent(value.getClass(), c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, n -> accessor(value.getClass(), n))
+                .apply(value);
+    }
+
+    /**
+     * Only getters and fields are used so a filter can't call a method with side effects.
+     */
+    private static Function<Object, Object> accessor(Class type, String name) {
+        String capitalised = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String methodName : new String[]{"get" + capitalised, "is" + capitalised}) {
+            try {
+                Method method = type.getMethod(methodName);
+                Class returnType = method.getReturnType();
+                if (Modifier.isStatic(method.getModifiers()) || returnType == void.class)
+                    continue;
+                if (methodName.startsWith("is") && returnType != boolean.class && returnType != Boolean.class)
+                    continue;
+                method.setAccessible(true);
+                return o -> invoke(method, o);
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        for (Class c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+                field.setAccessible(true);
+                return o -> get(field, o);
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        return o -> NO_FIELD;
+    }
+
+    private static Object invoke(Method method, Object o) {
+        try {
+            return method.invoke(o);
+        } catch (ReflectiveOperationException e) {
+            return NO_FIELD;
+        }
+    }
+
+    private static Object get(Field field, Object o) {
+        try {
+            return field.get(o);
+        } catch (IllegalAccessException e) {
+            return NO_FIELD;
+        }
+    }
+
+    static final class Term {
+        final String field;
+        final String op;
+        final String text;
+        // NaN if the value isn't a number.
+        final double number;
+
+        Term(String field, String op, String text) {
+            this.field = field;
+            this.op = op;
+            this.text = text;
+            this.number = parseDouble(text);
+        }
+
+        @Nullable
+        static Term parse(String term) {
+            if (!term.regionMatches(true, 0, PREFIX, 0, PREFIX.length()))
+                return null;
+            for (int i = PREFIX.length(); i < term.length(); i++) {
+                for (String op : OPERATORS) {
+                    if (term.startsWith(op, i)) {
+                        String field = term.substring(PREFIX.length(), i).trim();
+                        if (field.isEmpty())
+                            return null;
+                        return new Term(field, op, term.substring(i + op.length()).trim());
+                    }
+                }
+            }
+            return null;
+        }
+
+        boolean test(Object key, Object value) {
+            Object actual = fieldOf(key, value, field);
+            if (actual == NO_FIELD || actual == null)
+                return op.equals("!=");
+            int cmp;
+            double d = !Double.isNaN(number)
+                    ? actual instanceof Number ? ((Number) actual).doubleValue() : parseDouble(actual.toString())
+                    : Double.NaN;
+            if (!Double.isNaN(d)) {
+                cmp = Double.compare(d, number);
+            } else {
+                cmp = actual.toString().compareTo(text);
+            }
+            switch (op) {
+                case "=":
+                    return cmp == 0;
+                case "!=":
+                    return cmp != 0;
+                case ">":
+                    return cmp > 0;
+                case ">=":
+                    return cmp >= 0;
+                case "<":
+                    return cmp < 0;
+                default:
+                    return cmp <= 0;
+            }
+        }
+
+        static double parseDouble(String text) {
+            if (text.isEmpty())
+                return Double.NaN;
+            char ch = text.charAt(0);
+            if (!(ch >= '0' && ch <= '9') && ch != '-' && ch != '+' && ch != '.')
+                return Double.NaN;
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return field + op + text;
+        }
+    }
+}
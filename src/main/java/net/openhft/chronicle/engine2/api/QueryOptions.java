@@ -0,0 +1,173 @@
+package net.openhft.chronicle.engine2.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The options of a query string such as <code>bootstrap=true&amp;putReturnsNull=true</code> parsed once.
+ * Names are case insensitive, a name without a value e.g. <code>bootstrap</code> is the same as
+ * <code>bootstrap=true</code>.  Instances are immutable and cached per distinct query string.
+ */
+public final class QueryOptions {
+    public static final QueryOptions NONE = new QueryOptions("", Collections.emptyMap());
+
+    static final int MAX_CACHED = 1 << 12;
+    private static final ConcurrentMap<String, QueryOptions> CACHE = new ConcurrentHashMap<>();
+
+    private final String queryString;
+    private final Map<String, String> options;
+    private final boolean bootstrap;
+    private final boolean bootstrapAsync;
+    private final boolean putReturnsNull;
+    private final boolean removeReturnsNull;
+    private final Filter filter;
+
+    private QueryOptions(String queryString, Map<String, String> options) {
+        this.queryString = queryString;
+        this.options = options;
+        String bootstrap = get("bootstrap");
+        this.bootstrapAsync = "async".equalsIgnoreCase(bootstrap);
+        this.bootstrap = bootstrapAsync || Boolean.parseBoolean(bootstrap);
+        this.putReturnsNull = parseBoolean("putReturnsNull", false);
+        this.removeReturnsNull = parseBoolean("removeReturnsNull", false);
+        this.filter = Filter.compile(queryString);
+    }
+
+    @NotNull
+    public static QueryOptions of(@Nullable String queryString) {
+        if (queryString == null || queryString.isEmpty())
+            return NONE;
+        QueryOptions options = CACHE.get(queryString);
+        if (options != null)
+            return options;
+        options = new QueryOptions(queryString, parse(queryString));
+        if (CACHE.size() < MAX_CACHED) {
+            QueryOptions prev = CACHE.putIfAbsent(queryString, options);
+            if (prev != null)
+                return prev;
+        }
+        return options;
+    }
+
+    static Map<String, String> parse(String queryString) {
+        Map<String, String> map = new LinkedHashMap<>();
+        int start = 0, length = queryString.length();
+        while (start < length) {
+            int end = queryString.indexOf('&', start);
+            if (end < 0)
+                end = length;
+            if (end > start) {
+                int eq = queryString.indexOf('=', start);
+                if (eq < 0 || eq > end)
+                    map.put(queryString.substring(start, end).trim().toLowerCase(), "true");
+                else
+                    map.put(queryString.substring(start, eq).trim().toLowerCase(),
+                            queryString.substring(eq + 1, end).trim());
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private boolean parseBoolean(String name, boolean defaultValue) {
+        String value = get(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public String queryString() {
+        return queryString;
+    }
+
+    /**
+     * @return whether existing entries are sent to a subscriber when it registers.
+     */
+    public boolean bootstrap() {
+        return bootstrap;
+    }
+
+    /**
+     * @return whether the existing entries are sent on another thread, <code>bootstrap=async</code>
+     */
+    public boolean bootstrapAsync() {
+        return bootstrapAsync;
+    }
+
+    /**
+     * @return whether Map.put() can return null rather than the previous value.
+     */
+    public boolean putReturnsNull() {
+        return putReturnsNull;
+    }
+
+    /**
+     * @return whether Map.remove() can return null rather than the previous value.
+     */
+    public boolean removeReturnsNull() {
+        return removeReturnsNull;
+    }
+
+    /**
+     * @return the <code>where.</code> conditions in the query string, Filter.ALL if there are none.
+     */
+    public Filter filter() {
+        return filter;
+    }
+
+    @Nullable
+    public String get(@NotNull String name) {
+        return options.get(name.toLowerCase());
+    }
+
+    public boolean getBoolean(@NotNull String name, boolean defaultValue) {
+        return parseBoolean(name, defaultValue);
+    }
+
+    public long getLong(@NotNull String name, long defaultValue) {
+        String value = get(name);
+        if (value == null)
+            return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number for " + name + " in " + queryString, e);
+        }
+    }
+
+    /**
+     * @return a duration such as 50ms, 2s or 1min in milliseconds, a bare number is milliseconds.
+     */
+    public long getMillis(@NotNull String name, long defaultMillis) {
+        String value = get(name);
+        if (value == null)
+            return defaultMillis;
+        String v = value.trim().toLowerCase();
+        long unit = 1;
+        if (v.endsWith("ms")) {
+            v = v.substring(0, v.length() - 2);
+        } else if (v.endsWith("min")) {
+            v = v.substring(0, v.length() - 3);
+            unit = 60_000;
+        } else if (v.endsWith("s")) {
+            v = v.substring(0, v.length() - 1);
+            unit = 1_000;
+        }
+        try {
+            return Long.parseLong(v.trim()) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a duration for " + name + " in " + queryString, e);
+        }
+    }
+
+    public Map<String, String> asMap() {
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return queryString;
+    }
+}
@@ -7,8 +7,6 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
-import static net.openhft.chronicle.engine.utils.StringUtils.split2;
-
 /**
  * Created by peter on 22/05/15.
  */
@@ -24,58 +22,58 @@ public interface Session extends Closeable {
     <I extends Interceptor> void registerInterceptor(Class<I> iClass, I interceptor);
 
     default <E> Set<E> acquireSet(String name, Class<E> eClass) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
+        AssetPath path = AssetPath.of(name);
         //noinspection unchecked
-        return acquireAsset(parts[0], Set.class, eClass, null).acquireView(Set.class, eClass, parts[1]);
+        return acquireAsset(path.path(), Set.class, eClass, null).acquireView(Set.class, eClass, path.queryString());
     }
 
     default <K, V> ConcurrentMap<K, V> acquireMap(String name, Class<K> kClass, Class<V> vClass) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
+        AssetPath path = AssetPath.of(name);
         //noinspection unchecked
-        return acquireAsset(parts[0], ConcurrentMap.class, kClass, vClass).acquireView(ConcurrentMap.class, kClass, vClass, parts[1]);
+        return acquireAsset(path.path(), ConcurrentMap.class, kClass, vClass).acquireView(ConcurrentMap.class, kClass, vClass, path.queryString());
     }
 
     default <E> Publisher<E> acquirePublisher(String name, Class<E> eClass) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
+        AssetPath path = AssetPath.of(name);
         //noinspection unchecked
-        return acquireAsset(parts[0], Publisher.class, eClass, null).acquireView(Publisher.class, eClass, parts[1]);
+        return acquireAsset(path.path(), Publisher.class, eClass, null).acquireView(Publisher.class, eClass, path.queryString());
     }
 
     default <E> TopicPublisher<E> acquireTopicPublisher(String name, Class<E> eClass) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
+        AssetPath path = AssetPath.of(name);
         //noinspection unchecked
-        return acquireAsset(parts[0], TopicPublisher.class, eClass, null).acquireView(TopicPublisher.class, eClass, parts[1]);
+        return acquireAsset(path.path(), TopicPublisher.class, eClass, null).acquireView(TopicPublisher.class, eClass, path.queryString());
     }
 
     default <E> void register(String name, Class<E> eClass, Subscriber<E> subscriber) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
-        acquireAsset(parts[0], String.class, null, null)
-                .registerSubscriber(eClass, subscriber, parts[1]);
+        AssetPath path = AssetPath.of(name);
+        acquireAsset(path.path(), String.class, null, null)
+                .registerSubscriber(eClass, subscriber, path.queryString());
     }
 
     default <E> void unregister(String name, Class<E> eClass, Subscriber<E> subscriber) {
-        String[] parts = split2(name, '?');
-        Asset asset = getAsset(parts[0]);
+        AssetPath path = AssetPath.of(name);
+        Asset asset = getAsset(path.path());
         if (asset != null) {
             asset.unregisterSubscriber(eClass, subscriber, "");
         }
     }
 
     default <E> void register(String name, Class<E> eClass, TopicSubscriber<E> subscriber) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
-        acquireAsset(parts[0], null, null, null).registerSubscriber(eClass, subscriber, parts[1]);
+        AssetPath path = AssetPath.of(name);
+        acquireAsset(path.path(), null, null, null).registerSubscriber(eClass, subscriber, path.queryString());
     }
 
     default <E> void register(String name, Class<E> eClass, Factory<E> factory) throws AssetNotFoundException {
-        String[] parts = split2(name, '?');
-        acquireAsset(parts[0], null, null, null).registerFactory(eClass, factory);
+        AssetPath path = AssetPath.of(name);
+        acquireAsset(path.path(), null, null, null).registerFactory(eClass, factory);
     }
 
     default <E> void unregister(String name, Class<E> eClass, TopicSubscriber<E> subscriber) {
-        String[] parts = split2(name, '?');
-        Asset asset = getAsset(parts[0]);
+        AssetPath path = AssetPath.of(name);
+        Asset asset = getAsset(path.path());
         if (asset != null) {
-            asset.unregisterSubscriber(eClass, subscriber, parts[1]);
+            asset.unregisterSubscriber(eClass, subscriber, path.queryString());
         }
     }
 }
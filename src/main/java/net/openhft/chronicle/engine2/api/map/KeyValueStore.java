@@ -1,11 +1,17 @@
 package net.openhft.chronicle.engine2.api.map;
 
 import net.openhft.chronicle.engine2.api.Assetted;
+import net.openhft.chronicle.engine2.map.SegmentSpliterator;
 import net.openhft.chronicle.engine2.map.VanillaEntry;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Created by peter on 22/05/15.
@@ -34,12 +40,111 @@ public interface KeyValueStore<K, V> extends Assetted<KeyValueStore> {
         return get(key) != null;
     }
 
+    /*
+     * The defaults of the conditional operations below aren't atomic, stores override them.
+     */
+
+    /**
+     * @return the value already present, or null if this value was added.
+     */
+    default V putIfAbsent(K key, V value) {
+        V oldValue = get(key);
+        if (oldValue == null)
+            put(key, value);
+        return oldValue;
+    }
+
+    /**
+     * @return the value replaced, or null if there wasn't one and nothing was added.
+     */
+    default V replace(K key, V value) {
+        V oldValue = get(key);
+        if (oldValue != null)
+            put(key, value);
+        return oldValue;
+    }
+
+    /**
+     * @return whether the value was oldValue and is now newValue.
+     */
+    default boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        if (!oldValue.equals(get(key)))
+            return false;
+        put(key, newValue);
+        return true;
+    }
+
+    /**
+     * @return whether the value was this value and has been removed.
+     */
+    default boolean removeIfEqual(K key, V value) {
+        if (!value.equals(get(key)))
+            return false;
+        remove(key);
+        return true;
+    }
+
+    /**
+     * Sets the value to the result of the function, or removes it if the result is null, as
+     * Map.compute().  The default retries with the conditional operations above so the function
+     * can be called more than once.
+     *
+     * @return the new value
+     */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        for (; ; ) {
+            V oldValue = get(key);
+            V newValue = remapping.apply(key, oldValue);
+            if (oldValue == null) {
+                if (newValue == null || putIfAbsent(key, newValue) == null)
+                    return newValue;
+
+            } else if (newValue == null) {
+                if (removeIfEqual(key, oldValue))
+                    return null;
+
+            } else if (replaceIfEqual(key, oldValue, newValue)) {
+                return newValue;
+            }
+        }
+    }
+
+    /**
+     * @return the value present, or the one computed and added if there wasn't one.
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value != null)
+            return value;
+        V newValue = function.apply(key);
+        if (newValue == null)
+            return null;
+        V oldValue = putIfAbsent(key, newValue);
+        return oldValue == null ? newValue : oldValue;
+    }
+
+    /**
+     * Sets the value, or combines it with the value present, as Map.merge().
+     *
+     * @return the new value
+     */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return compute(key, (k, oldValue) -> oldValue == null ? value : function.apply(oldValue, value));
+    }
+
     default boolean isReadOnly() {
         return false;
     }
 
     long size();
 
+    /**
+     * @return the class of the keys, or null if the store wasn't told.
+     */
+    default Class<K> keyType() {
+        return null;
+    }
+
     default int segments() {
         return 1;
     }
@@ -48,12 +153,49 @@ public interface KeyValueStore<K, V> extends Assetted<KeyValueStore> {
         return 0;
     }
 
+    /**
+     * @return the number of entries in a segment, or -1 if the store can't tell.
+     */
+    default long segmentSize(int segment) {
+        return segments() == 1 ? size() : -1;
+    }
+
+    /**
+     * @return the segment numbers, a parallel stream if there is more than one segment.
+     */
+    default IntStream segmentStream() {
+        int segments = segments();
+        IntStream range = IntStream.range(0, segments);
+        return segments > 1 ? range.parallel() : range;
+    }
+
+    /**
+     * Calls the consumer for each segment. With more than one segment these calls are made
+     * concurrently on the fork-join common pool, so the consumer must be thread safe.
+     */
+    default void forEachSegment(IntConsumer segmentConsumer) {
+        if (segments() == 1)
+            segmentConsumer.accept(0);
+        else
+            segmentStream().forEach(segmentConsumer);
+    }
+
     void keysFor(int segment, Consumer<K> kConsumer);
 
+    /**
+     * The entry passed to the consumer may be reused for the next one, use Entry.copy() to keep it.
+     */
     void entriesFor(int segment, Consumer<Entry<K, V>> kvConsumer);
 
     Iterator<Map.Entry<K, V>> entrySetIterator();
 
+    /**
+     * @return a Spliterator which splits by segment, for parallel streams.
+     */
+    default Spliterator<Map.Entry<K, V>> entrySetSpliterator() {
+        return new SegmentSpliterator<>(this);
+    }
+
     void clear();
 
     interface Entry<K, V> {
@@ -61,6 +203,13 @@ public interface KeyValueStore<K, V> extends Assetted<KeyValueStore> {
 
         V value();
 
+        /**
+         * @return an entry which can be kept after the callback, this one if it is immutable.
+         */
+        default Entry<K, V> copy() {
+            return this;
+        }
+
         static <K, V> Entry<K, V> of(K key, V value) {
             return new VanillaEntry<>(key, value);
         }
@@ -0,0 +1,10 @@
+package net.openhft.chronicle.engine2.api.map;
+
+import net.openhft.chronicle.engine2.api.Interceptor;
+
+/**
+ * A KeyValueStore layered over the store created for a map asset.  If a factory is registered for
+ * this class it is called with the new store as the item, otherwise the store is used directly.
+ */
+public interface KeyValueStoreInterceptor<K, V> extends KeyValueStore<K, V>, Interceptor {
+}
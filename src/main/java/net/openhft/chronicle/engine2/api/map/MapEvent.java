@@ -5,4 +5,12 @@ package net.openhft.chronicle.engine2.api.map;
  */
 public interface MapEvent<K, V> extends KeyValueStore.Entry<K, V> {
     void apply(MapEventListener<K, V> listener);
+
+    /**
+     * @return an event which can be kept after the callback, this one if it is immutable.
+     */
+    @Override
+    default MapEvent<K, V> copy() {
+        return this;
+    }
 }
@@ -0,0 +1,14 @@
+package net.openhft.chronicle.engine2.api.map;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+
+/**
+ * A TopicSubscriber for the changes to one key.  It is indexed by that key so changes to other
+ * keys cost it nothing.
+ */
+public interface SingleKeySubscriber<E> extends TopicSubscriber<E> {
+    /**
+     * @return the key as a topic name i.e. key.toString()
+     */
+    String key();
+}
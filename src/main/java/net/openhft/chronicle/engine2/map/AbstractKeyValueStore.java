@@ -6,7 +6,9 @@ import net.openhft.chronicle.engine2.api.map.KeyValueStore;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Created by peter on 22/05/15.
@@ -28,6 +30,11 @@ public class AbstractKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return kvStore;
     }
 
+    @Override
+    public Class<K> keyType() {
+        return kvStore.keyType();
+    }
+
     @Override
     public V getAndPut(K key, V value) {
         return kvStore.getAndPut(key, value);
@@ -43,6 +50,41 @@ public class AbstractKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return kvStore.getUsing(key, value);
     }
 
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return kvStore.putIfAbsent(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return kvStore.replace(key, value);
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        return kvStore.replaceIfEqual(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        return kvStore.removeIfEqual(key, value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return kvStore.compute(key, remapping);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        return kvStore.computeIfAbsent(key, function);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return kvStore.merge(key, value, function);
+    }
+
     @Override
     public Iterator<Map.Entry<K, V>> entrySetIterator() {
         return kvStore.entrySetIterator();
@@ -53,6 +95,21 @@ public class AbstractKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return kvStore.size();
     }
 
+    @Override
+    public int segments() {
+        return kvStore.segments();
+    }
+
+    @Override
+    public int segmentFor(K key) {
+        return kvStore.segmentFor(key);
+    }
+
+    @Override
+    public long segmentSize(int segment) {
+        return kvStore.segmentSize(segment);
+    }
+
     @Override
     public void keysFor(int segment, Consumer<K> kConsumer) {
         kvStore.keysFor(segment, kConsumer);
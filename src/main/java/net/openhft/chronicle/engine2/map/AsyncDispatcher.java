@@ -0,0 +1,192 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.QueryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Delivers events to one subscriber on another thread so a slow subscriber doesn't slow down the
+ * writers.  Events are queued in a ring buffer and drained by a pooled thread, or a thread of its
+ * own with <code>dispatch=dedicated</code>.
+ * <p>
+ * The query options are <code>async=true</code>, <code>bufferSize</code> (default 1024) and
+ * <code>backPressure</code>, what to do when the buffer is full, one of
+ * <ul>
+ * <li>block - the writer waits for space, the default.</li>
+ * <li>drop - the event is discarded and counted.</li>
+ * <li>conflate - only the latest event per key is kept until it is delivered.</li>
+ * </ul>
+ */
+public class AsyncDispatcher<E> implements Consumer<E>, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncDispatcher.class);
+    static final int DEFAULT_BUFFER_SIZE = 1024;
+    static final int MAX_DRAIN = 256;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService SHARED = Executors.newCachedThreadPool(AsyncDispatcher::newThread);
+
+    public enum BackPressure {
+        BLOCK, DROP, CONFLATE
+    }
+
+    private final Consumer<E> subscriber;
+    private final Function<E, Object> keyOf;
+    private final BackPressure backPressure;
+    private final ExecutorService executor;
+    private final boolean dedicated;
+    // for conflation the buffer holds keys and pending the latest event for each.
+    private final RingBuffer<Object> buffer;
+    private final ConcurrentMap<Object, E> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile int maxDepth;
+    private volatile boolean closed;
+
+    public AsyncDispatcher(Consumer<E> subscriber, Function<E, Object> keyOf, QueryOptions options) {
+        this(subscriber, keyOf, (int) options.getLong("bufferSize", DEFAULT_BUFFER_SIZE),
+                backPressure(options.get("backPressure")),
+                "dedicated".equalsIgnoreCase(options.get("dispatch")));
+    }
+
+    public AsyncDispatcher(Consumer<E> subscriber, Function<E, Object> keyOf, int bufferSize,
+                           BackPressure backPressure, boolean dedicated) {
+        this.subscriber = subscriber;
+        this.keyOf = keyOf;
+        this.backPressure = backPressure;
+        this.dedicated = dedicated;
+        this.executor = dedicated ? Executors.newSingleThreadExecutor(AsyncDispatcher::newThread) : SHARED;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.pending = backPressure == BackPressure.CONFLATE ? new ConcurrentHashMap<>() : null;
+    }
+
+    static BackPressure backPressure(String name) {
+        return name == null ? BackPressure.BLOCK : BackPressure.valueOf(name.toUpperCase());
+    }
+
+    private static Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "subscriber-dispatch-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    }
+
+    @Override
+    public void accept(E e) {
+        if (closed)
+            return;
+        if (pending != null) {
+            Object key = keyOf.apply(e);
+            if (pending.put(key, e) != null) {
+                // the key is already queued, it will pick up this event.
+                conflated.increment();
+                return;
+            }
+            offer(key, true);
+
+        } else {
+            offer(e, backPressure == BackPressure.BLOCK);
+        }
+        int depth = buffer.size();
+        if (depth > maxDepth)
+            maxDepth = depth;
+        schedule();
+    }
+
+    private void offer(Object o, boolean block) {
+        while (!buffer.offer(o)) {
+            if (!block || closed) {
+                dropped.increment();
+                return;
+            }
+            schedule();
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // closed after the writer checked, the events left aren't delivered.
+                dropped.add(buffer.size());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < MAX_DRAIN; i++) {
+                Object o = buffer.poll();
+                if (o == null)
+                    break;
+                E e = pending == null ? (E) o : pending.remove(o);
+                if (e == null)
+                    continue;
+                try {
+                    subscriber.accept(e);
+                } catch (Exception ex) {
+                    // a failing subscriber shouldn't stop delivery to itself or others.
+                    LOG.warn("Subscriber failed to handle " + e, ex);
+                }
+                delivered.increment();
+            }
+        } finally {
+            scheduled.set(false);
+            // events added while finishing, or more than one drain's worth.
+            if (buffer.size() > 0 && !closed)
+                schedule();
+        }
+    }
+
+    public int depth() {
+        return buffer.size();
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long conflated() {
+        return conflated.sum();
+    }
+
+    public long delivered() {
+        return delivered.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (dedicated)
+            executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncDispatcher{" +
+                "backPressure=" + backPressure +
+                ", depth=" + depth() + "/" + capacity() +
+                ", maxDepth=" + maxDepth +
+                ", delivered=" + delivered() +
+                ", dropped=" + dropped() +
+                ", conflated=" + conflated() +
+                '}';
+    }
+}
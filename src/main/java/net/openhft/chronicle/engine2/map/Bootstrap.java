@@ -0,0 +1,92 @@
+package net.openhft.chronicle.engine2.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Brings a new subscriber up to date without losing a change.  It is registered in front of the
+ * subscriber before the store is scanned.  Changes made during the scan are buffered and the
+ * scan skips the entries they touch, as the buffer has their latest state.  The buffer is then
+ * replayed and later changes pass straight through.
+ * <p>
+ * A writer changes and notifies a key holding its segment's change lock, which the scan of the
+ * segment holds exclusively, so an entry read by the scan is either one whose change has already
+ * touched it, or one whose change comes after it.  Neither is sent twice.  Changes which aren't
+ * made under the lock, e.g. files changed by another process, can still be seen twice.
+ */
+final class Bootstrap<T> {
+    private final Consumer<T> target;
+    private final Function<T, Object> keyOf;
+    private final UnaryOperator<T> copy;
+    private final Set<Object> touched = ConcurrentHashMap.newKeySet();
+    private List<T> buffer = new ArrayList<>();
+    private volatile boolean live;
+
+    /**
+     * @param copy makes a buffered change safe to keep, e.g. MapEvent.copy() for flyweights.
+     */
+    Bootstrap(Consumer<T> target, Function<T, Object> keyOf, UnaryOperator<T> copy) {
+        this.target = target;
+        this.keyOf = keyOf;
+        this.copy = copy;
+    }
+
+    boolean isLive() {
+        return live;
+    }
+
+    /**
+     * A change from the store, buffered until the snapshot has been sent.
+     */
+    void accept(T t) {
+        if (!live) {
+            synchronized (this) {
+                if (!live) {
+                    touched.add(keyOf.apply(t));
+                    buffer.add(copy.apply(t));
+                    return;
+                }
+            }
+        }
+        target.accept(t);
+    }
+
+    /**
+     * An entry from the scan, the caller makes sure only one thread calls this at a time.
+     */
+    void snapshot(Object key, T t) {
+        if (!touched.contains(key))
+            target.accept(t);
+    }
+
+    /**
+     * Sends the changes buffered during the scan, outside the lock so writers aren't held up, and
+     * then goes live.
+     */
+    void finish() {
+        for (; ; ) {
+            List<T> batch;
+            synchronized (this) {
+                if (buffer.isEmpty()) {
+                    live = true;
+                    buffer = null;
+                    touched.clear();
+                    return;
+                }
+                batch = buffer;
+                buffer = new ArrayList<>();
+            }
+            batch.forEach(target);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Bootstrap{live=" + live + '}';
+    }
+}
@@ -0,0 +1,229 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.bytes.IORuntimeException;
+import net.openhft.chronicle.engine2.api.Asset;
+import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.QueryOptions;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A KeyValueStore held off heap in ChronicleMaps, one per segment, so large stores don't add to
+ * the heap or GC pauses.  If the context has a basePath each segment is persisted to a file under
+ * basePath/name.  Select it for the assets under a path with
+ * <pre>registerFactory("path", KeyValueStore.class, ChronicleMapKeyValueStore::new);</pre>
+ */
+public class ChronicleMapKeyValueStore<K, V> implements KeyValueStore<K, V>, Closeable {
+    static final long DEFAULT_ENTRIES = 1 << 20;
+
+    private final ChronicleMap<K, V>[] maps;
+    private final Class<K> keyType;
+    private Asset asset;
+
+    /**
+     * The size can be set with the <code>entries</code>, <code>segments</code>,
+     * <code>averageKeySize</code> and <code>averageValueSize</code> query options.
+     */
+    public ChronicleMapKeyValueStore(FactoryContext context) {
+        this(context, context.queryOptions());
+    }
+
+    private ChronicleMapKeyValueStore(FactoryContext context, QueryOptions options) {
+        this(context, options.getLong("entries", DEFAULT_ENTRIES), (int) options.getLong("segments", 1),
+                options.getLong("averageKeySize", 0), options.getLong("averageValueSize", 0));
+    }
+
+    /**
+     * @param averageKeySize   in bytes, or 0 for ChronicleMap's default
+     * @param averageValueSize in bytes, or 0 for ChronicleMap's default
+     */
+    public ChronicleMapKeyValueStore(FactoryContext context, long entries, int segments,
+                                     long averageKeySize, long averageValueSize) {
+        if (segments < 1) throw new IllegalArgumentException("segments: " + segments);
+        if (context.type() == null || context.type2() == null)
+            throw new IllegalArgumentException("The key and value types are required");
+        asset = context.parent();
+        keyType = context.type();
+
+        ChronicleMapBuilder<K, V> builder = ChronicleMapBuilder.of((Class<K>) context.type(), (Class<V>) context.type2())
+                .entries(Math.max(1, entries / segments));
+        if (averageKeySize > 0)
+            builder.averageKeySize(averageKeySize);
+        if (averageValueSize > 0)
+            builder.averageValueSize(averageValueSize);
+
+        maps = new ChronicleMap[segments];
+        try {
+            for (int i = 0; i < segments; i++)
+                maps[i] = context.basePath() == null
+                        ? builder.create()
+                        : builder.createPersistedTo(segmentFile(context, i));
+        } catch (IOException e) {
+            close();
+            throw new IORuntimeException(e);
+        }
+    }
+
+    @NotNull
+    private static File segmentFile(FactoryContext context, int segment) {
+        File dir = new File(context.basePath(), context.name());
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IORuntimeException(new IOException("Unable to create " + dir));
+        return new File(dir, "segment-" + segment);
+    }
+
+    private ChronicleMap<K, V> mapFor(K key) {
+        return maps[segmentFor(key)];
+    }
+
+    @Override
+    public Class<K> keyType() {
+        return keyType;
+    }
+
+    @Override
+    public int segments() {
+        return maps.length;
+    }
+
+    @Override
+    public int segmentFor(K key) {
+        return VanillaKeyValueStore.segmentFor(key, maps.length);
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        return mapFor(key).put(key, value);
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        return mapFor(key).remove(key);
+    }
+
+    /**
+     * @param value a value to read into for types ChronicleMap can reuse, or null for a new one.
+     */
+    @Override
+    public V getUsing(K key, V value) {
+        return mapFor(key).getUsing(key, value);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return mapFor(key).containsKey(key);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return mapFor(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return mapFor(key).replace(key, value);
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        return mapFor(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        return mapFor(key).remove(key, value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return mapFor(key).compute(key, remapping);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        return mapFor(key).computeIfAbsent(key, function);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return mapFor(key).merge(key, value, function);
+    }
+
+    @Override
+    public long size() {
+        if (maps.length == 1)
+            return maps[0].longSize();
+        return segmentStream().mapToLong(i -> maps[i].longSize()).sum();
+    }
+
+    @Override
+    public long segmentSize(int segment) {
+        return maps[segment].longSize();
+    }
+
+    @Override
+    public void keysFor(int segment, Consumer<K> kConsumer) {
+        maps[segment].keySet().forEach(kConsumer);
+    }
+
+    @Override
+    public void entriesFor(int segment, Consumer<Entry<K, V>> kvConsumer) {
+        MutableEntry<K, V> entry = new MutableEntry<>();
+        maps[segment].forEach((k, v) -> kvConsumer.accept(entry.set(k, v)));
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> entrySetIterator() {
+        if (maps.length == 1)
+            return maps[0].entrySet().iterator();
+        return Stream.of(maps).flatMap(m -> m.entrySet().stream()).iterator();
+    }
+
+    @Override
+    public void clear() {
+        forEachSegment(i -> maps[i].clear());
+    }
+
+    @Override
+    public void asset(Asset asset) {
+        if (this.asset != null) throw new IllegalStateException();
+        this.asset = asset;
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Override
+    public void underlying(KeyValueStore underlying) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KeyValueStore underlying() {
+        return null;
+    }
+
+    /**
+     * Closes the ChronicleMaps, called when the asset is closed.
+     */
+    @Override
+    public void close() {
+        for (ChronicleMap<K, V> map : maps)
+            if (map != null)
+                map.close();
+    }
+}
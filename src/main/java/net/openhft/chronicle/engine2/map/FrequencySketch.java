@@ -0,0 +1,63 @@
+package net.openhft.chronicle.engine2.map;
+
+/**
+ * An approximate count of recent accesses per key, a count-min sketch of four small counters per
+ * key which are all halved once enough accesses have been recorded so old popularity fades.
+ * <p>
+ * Updates are neither atomic nor locked, a lost increment only makes the estimate slightly lower.
+ */
+final class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb3bbe1a1, 0x5a8c7bf5, 0x3c6ef372};
+
+    private final int[] counters;
+    private final int mask;
+    private final int resetAfter;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int size = Integer.highestOneBit(Math.max(256, capacity) * 2 - 1) * 4;
+        counters = new int[size];
+        mask = size - 1;
+        resetAfter = Math.max(16, capacity) * 10;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int seed : SEEDS) {
+            int i = index(hash, seed);
+            if (counters[i] < MAX_COUNT) {
+                counters[i]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= resetAfter)
+            reset();
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int seed : SEEDS)
+            min = Math.min(min, counters[index(hash, seed)]);
+        return min;
+    }
+
+    private void reset() {
+        additions = 0;
+        for (int i = 0; i < counters.length; i++)
+            counters[i] >>>= 1;
+    }
+
+    private int index(int hash, int seed) {
+        int h = hash * seed;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+}
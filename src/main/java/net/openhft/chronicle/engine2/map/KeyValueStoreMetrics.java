@@ -0,0 +1,134 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.bytes.Bytes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation counts, latencies, value sizes and hit rates for one KeyValueStore.  Updates are
+ * uncontended adds so many threads can record at once.
+ */
+public class KeyValueStoreMetrics {
+    public enum Operation {
+        GET, PUT, REMOVE, CONTAINS_KEY, SIZE, ITERATE, CLEAR
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final Histogram[] latencies = new Histogram[OPERATIONS.length];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder valuesSized = new LongAdder();
+    private final LongAdder valueBytes = new LongAdder();
+
+    public KeyValueStoreMetrics() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i] = new LongAdder();
+            latencies[i] = new Histogram();
+        }
+    }
+
+    public void record(Operation operation, long startNanos) {
+        counts[operation.ordinal()].increment();
+        latencies[operation.ordinal()].sample(System.nanoTime() - startNanos);
+    }
+
+    public void hit(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    public void valueSize(Object value) {
+        long size = sizeOf(value);
+        if (size >= 0) {
+            valuesSized.increment();
+            valueBytes.add(size);
+        }
+    }
+
+    static long sizeOf(Object value) {
+        if (value instanceof byte[])
+            return ((byte[]) value).length;
+        if (value instanceof CharSequence)
+            return ((CharSequence) value).length();
+        if (value instanceof Bytes)
+            return ((Bytes) value).remaining();
+        return -1;
+    }
+
+    public long count(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    public Histogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hits = hits(), total = hits + misses();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    public double averageValueSize() {
+        long sized = valuesSized.sum();
+        return sized == 0 ? Double.NaN : (double) valueBytes.sum() / sized;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("KeyValueStoreMetrics{");
+        for (Operation operation : OPERATIONS) {
+            long count = count(operation);
+            if (count > 0)
+                sb.append(operation).append('=').append(count)
+                        .append(" 99%<").append(latency(operation).percentile(0.99)).append("ns, ");
+        }
+        return sb.append("hitRate=").append(hitRate())
+                .append(", averageValueSize=").append(averageValueSize())
+                .append('}').toString();
+    }
+
+    /**
+     * Latencies in power of two nano-second buckets.
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        public void sample(long nanos) {
+            buckets.incrementAndGet(nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos));
+        }
+
+        public long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++)
+                count += buckets.get(i);
+            return count;
+        }
+
+        /**
+         * @return the upper bound in nano-seconds of the bucket the fraction of samples falls in.
+         */
+        public long percentile(double fraction) {
+            long count = count();
+            if (count == 0)
+                return 0;
+            long target = (long) Math.ceil(count * fraction);
+            long sum = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                sum += buckets.get(i);
+                if (sum >= target)
+                    return i == 0 ? 0 : 1L << Math.min(i, 62);
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
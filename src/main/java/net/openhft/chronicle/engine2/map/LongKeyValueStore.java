@@ -0,0 +1,562 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine2.api.Asset;
+import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * A KeyValueStore for <code>long</code> keys held in open addressing tables of primitive keys, so
+ * there is no boxed key or hash node per entry.  The <code>long</code> methods don't create any
+ * garbage, the <code>Long</code> methods are for the generic API.
+ * <p>
+ * Used when a map is acquired with Long.class keys.  Reads are optimistic and don't lock.
+ */
+public class LongKeyValueStore<V> implements KeyValueStore<Long, V> {
+    private static final ThreadLocal<Wire> COPY_WIRE = ThreadLocal.withInitial(
+            () -> new BinaryWire(Bytes.elasticByteBuffer()));
+
+    private final LongTable<V>[] tables;
+    private Asset asset;
+
+    public LongKeyValueStore(FactoryContext context) {
+        this(context, 1);
+    }
+
+    public LongKeyValueStore(FactoryContext context, int segments) {
+        if (segments < 1) throw new IllegalArgumentException("segments: " + segments);
+        asset = context.parent();
+        tables = new LongTable[segments];
+        for (int i = 0; i < segments; i++)
+            tables[i] = new LongTable<>();
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private LongTable<V> tableFor(long key) {
+        return tables[segmentFor(key)];
+    }
+
+    public int segmentFor(long key) {
+        return tables.length == 1 ? 0 : (hash(key) >>> 16) % tables.length;
+    }
+
+    public V get(long key) {
+        return tableFor(key).get(key);
+    }
+
+    /**
+     * Copies the value into the one supplied if it is a Marshallable of the same class, so the
+     * caller can reuse it, otherwise returns the value held.
+     */
+    public V getUsing(long key, V using) {
+        return copyUsing(get(key), using);
+    }
+
+    /**
+     * Copies the value into using if it is a Marshallable of the same class, otherwise returns
+     * the value.
+     */
+    static <V> V copyUsing(V value, V using) {
+        if (value == null || using == null || using == value
+                || !(using instanceof Marshallable) || using.getClass() != value.getClass())
+            return value;
+        Wire wire = COPY_WIRE.get();
+        Bytes bytes = wire.bytes();
+        bytes.clear();
+        ((Marshallable) value).writeMarshallable(wire);
+        bytes.flip();
+        ((Marshallable) using).readMarshallable(wire);
+        return using;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V getAndPut(long key, @NotNull V value) {
+        if (value == null) throw new NullPointerException("value");
+        return tableFor(key).put(key, value);
+    }
+
+    public V getAndRemove(long key) {
+        return tableFor(key).remove(key);
+    }
+
+    public V putIfAbsent(long key, @NotNull V value) {
+        if (value == null) throw new NullPointerException("value");
+        return tableFor(key).putIfAbsent(key, value);
+    }
+
+    public V replace(long key, @NotNull V value) {
+        if (value == null) throw new NullPointerException("value");
+        return tableFor(key).replace(key, value);
+    }
+
+    public boolean replaceIfEqual(long key, @NotNull V oldValue, @NotNull V newValue) {
+        if (newValue == null) throw new NullPointerException("newValue");
+        return tableFor(key).replace(key, oldValue, newValue);
+    }
+
+    public boolean removeIfEqual(long key, @NotNull V value) {
+        return tableFor(key).remove(key, value);
+    }
+
+    @Override
+    public V getAndPut(Long key, V value) {
+        return getAndPut(key.longValue(), value);
+    }
+
+    @Override
+    public V getAndRemove(Long key) {
+        return getAndRemove(key.longValue());
+    }
+
+    @Override
+    public V putIfAbsent(Long key, V value) {
+        return putIfAbsent(key.longValue(), value);
+    }
+
+    @Override
+    public V replace(Long key, V value) {
+        return replace(key.longValue(), value);
+    }
+
+    @Override
+    public boolean replaceIfEqual(Long key, V oldValue, V newValue) {
+        return replaceIfEqual(key.longValue(), oldValue, newValue);
+    }
+
+    @Override
+    public boolean removeIfEqual(Long key, V value) {
+        return removeIfEqual(key.longValue(), value);
+    }
+
+    /**
+     * The function is called holding the segment's lock.  It can read the store but mustn't change
+     * the same segment, which throws an IllegalStateException rather than deadlocking.
+     */
+    @Override
+    public V compute(Long key, BiFunction<? super Long, ? super V, ? extends V> remapping) {
+        return tableFor(key).compute(key, remapping);
+    }
+
+    /**
+     * Doesn't lock if the key is present, otherwise as compute.
+     */
+    @Override
+    public V computeIfAbsent(Long key, Function<? super Long, ? extends V> function) {
+        LongTable<V> table = tableFor(key);
+        V value = table.get(key);
+        if (value != null)
+            return value;
+        return table.compute(key, (k, v) -> v == null ? function.apply(k) : v);
+    }
+
+    @Override
+    public V getUsing(Long key, V value) {
+        return getUsing(key.longValue(), value);
+    }
+
+    @Override
+    public boolean containsKey(Long key) {
+        return containsKey(key.longValue());
+    }
+
+    @Override
+    public Class<Long> keyType() {
+        return Long.class;
+    }
+
+    @Override
+    public int segments() {
+        return tables.length;
+    }
+
+    @Override
+    public int segmentFor(Long key) {
+        return segmentFor(key.longValue());
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (LongTable<V> table : tables)
+            size += table.size();
+        return size;
+    }
+
+    @Override
+    public long segmentSize(int segment) {
+        return tables[segment].size();
+    }
+
+    /**
+     * Calls the consumer with the keys without boxing them.
+     */
+    public void longKeysFor(int segment, LongConsumer kConsumer) {
+        for (long key : tables[segment].keys())
+            kConsumer.accept(key);
+    }
+
+    @Override
+    public void keysFor(int segment, Consumer<Long> kConsumer) {
+        longKeysFor(segment, kConsumer::accept);
+    }
+
+    /**
+     * Only the segment's keys are copied, the values are looked up as they are passed to the
+     * consumer so entries removed since are skipped.
+     */
+    @Override
+    public void entriesFor(int segment, Consumer<Entry<Long, V>> kvConsumer) {
+        LongTable<V> table = tables[segment];
+        MutableEntry<Long, V> entry = new MutableEntry<>();
+        for (long key : table.keys()) {
+            V value = table.get(key);
+            if (value != null)
+                kvConsumer.accept(entry.set(key, value));
+        }
+    }
+
+    /**
+     * Copies the keys of one segment at a time.
+     */
+    @Override
+    public Iterator<Map.Entry<Long, V>> entrySetIterator() {
+        return new EntryIterator();
+    }
+
+    class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+        int segment = -1;
+        long[] keys = {};
+        int pos;
+        Map.Entry<Long, V> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (pos >= keys.length) {
+                    if (++segment >= tables.length)
+                        return false;
+                    keys = tables[segment].keys();
+                    pos = 0;
+                    continue;
+                }
+                long key = keys[pos++];
+                V value = tables[segment].get(key);
+                if (value != null)
+                    next = new AbstractMap.SimpleImmutableEntry<>(key, value);
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<Long, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Map.Entry<Long, V> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+
+    @Override
+    public void clear() {
+        forEachSegment(i -> tables[i].clear());
+    }
+
+    @Override
+    public void asset(Asset asset) {
+        if (this.asset != null) throw new IllegalStateException();
+        this.asset = asset;
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Override
+    public void underlying(KeyValueStore underlying) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KeyValueStore underlying() {
+        return null;
+    }
+
+    /**
+     * Linear probing over parallel arrays, a null value is an empty slot. Removal shifts the
+     * following entries back so there are no tombstones.
+     */
+    static final class LongTable<V> {
+        static final int INITIAL_CAPACITY = 16;
+
+        final StampedLock lock = new StampedLock();
+        long[] keys = new long[INITIAL_CAPACITY];
+        Object[] values = new Object[INITIAL_CAPACITY];
+        int size;
+        // the thread calling a compute function, it holds the write lock which isn't reentrant.
+        Thread computing;
+
+        private boolean computingInThisThread() {
+            return computing == Thread.currentThread();
+        }
+
+        private long writeLock() {
+            if (computingInThisThread())
+                throw new IllegalStateException("A compute function can't change its own segment");
+            return lock.writeLock();
+        }
+
+        V get(long key) {
+            if (computingInThisThread())
+                return find(keys, values, key);
+            long stamp = lock.tryOptimisticRead();
+            V value = find(keys, values, key);
+            if (lock.validate(stamp))
+                return value;
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // may see a table being resized, the caller validates the result.
+        private static <V> V find(long[] keys, Object[] values, long key) {
+            int mask = Math.min(keys.length, values.length) - 1;
+            for (int i = hash(key) & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                Object value = values[i];
+                if (value == null)
+                    return null;
+                if (keys[i] == key)
+                    return (V) value;
+            }
+            return null;
+        }
+
+        // the slot holding the key, or -1 - the empty slot it would go in. Called holding the write lock.
+        private int slot(long key) {
+            int mask = values.length - 1;
+            int i = hash(key) & mask;
+            for (; values[i] != null; i = (i + 1) & mask)
+                if (keys[i] == key)
+                    return i;
+            return -1 - i;
+        }
+
+        private void insert(int empty, long key, V value) {
+            keys[empty] = key;
+            values[empty] = value;
+            if (++size * 4 > values.length * 3)
+                resize();
+        }
+
+        private V delete(int i) {
+            V prev = (V) values[i];
+            shiftBack(i, values.length - 1);
+            size--;
+            return prev;
+        }
+
+        V put(long key, V value) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                if (i < 0) {
+                    insert(-1 - i, key, value);
+                    return null;
+                }
+                V prev = (V) values[i];
+                values[i] = value;
+                return prev;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V putIfAbsent(long key, V value) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                if (i >= 0)
+                    return (V) values[i];
+                insert(-1 - i, key, value);
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V replace(long key, V value) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                if (i < 0)
+                    return null;
+                V prev = (V) values[i];
+                values[i] = value;
+                return prev;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean replace(long key, V oldValue, V newValue) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                if (i < 0 || !oldValue.equals(values[i]))
+                    return false;
+                values[i] = newValue;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V compute(long key, BiFunction<? super Long, ? super V, ? extends V> remapping) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                V oldValue = i < 0 ? null : (V) values[i];
+                V newValue;
+                computing = Thread.currentThread();
+                try {
+                    newValue = remapping.apply(key, oldValue);
+                } finally {
+                    computing = null;
+                }
+                if (newValue == null) {
+                    if (i >= 0)
+                        delete(i);
+                } else if (i >= 0) {
+                    values[i] = newValue;
+                } else {
+                    insert(-1 - i, key, newValue);
+                }
+                return newValue;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V remove(long key) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                return i < 0 ? null : delete(i);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long key, V value) {
+            long stamp = writeLock();
+            try {
+                int i = slot(key);
+                if (i < 0 || !value.equals(values[i]))
+                    return false;
+                delete(i);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void shiftBack(int gap, int mask) {
+            for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                // move the entry into the gap unless its home slot is cyclically in (gap, i].
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            Object[] newValues = new Object[oldValues.length * 2];
+            int mask = newValues.length - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] == null)
+                    continue;
+                int i = hash(oldKeys[j]) & mask;
+                while (newValues[i] != null)
+                    i = (i + 1) & mask;
+                newKeys[i] = oldKeys[j];
+                newValues[i] = oldValues[j];
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        int size() {
+            if (computingInThisThread())
+                return size;
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // a copy of the keys so they can be used without holding the lock.
+        long[] keys() {
+            if (computingInThisThread())
+                return copyKeys();
+            long stamp = lock.readLock();
+            try {
+                return copyKeys();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private long[] copyKeys() {
+            long[] copy = new long[size];
+            for (int i = 0, j = 0; i < values.length; i++)
+                if (values[i] != null)
+                    copy[j++] = keys[i];
+            return copy;
+        }
+
+        void clear() {
+            long stamp = writeLock();
+            try {
+                keys = new long[INITIAL_CAPACITY];
+                values = new Object[INITIAL_CAPACITY];
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
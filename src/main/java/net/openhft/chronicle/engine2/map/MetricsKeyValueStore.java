@@ -0,0 +1,192 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.api.map.KeyValueStoreInterceptor;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.engine2.map.KeyValueStoreMetrics.Operation.*;
+
+/**
+ * Records metrics for each operation before passing it to the underlying store.  Enable it with
+ * <pre>registerFactory("", KeyValueStoreInterceptor.class, MetricsKeyValueStore::new);</pre>
+ * Without the registration stores are not wrapped and calls go directly to the store.
+ */
+public class MetricsKeyValueStore<K, V> extends AbstractKeyValueStore<K, V> implements KeyValueStoreInterceptor<K, V> {
+    private final KeyValueStoreMetrics metrics = new KeyValueStoreMetrics();
+
+    public MetricsKeyValueStore(FactoryContext<KeyValueStore<K, V>> context) {
+        super(context);
+    }
+
+    public KeyValueStoreMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        long start = System.nanoTime();
+        kvStore.put(key, value);
+        metrics.record(PUT, start);
+        metrics.valueSize(value);
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        long start = System.nanoTime();
+        V oldValue = kvStore.getAndPut(key, value);
+        metrics.record(PUT, start);
+        metrics.valueSize(value);
+        return oldValue;
+    }
+
+    @Override
+    public void remove(K key) {
+        long start = System.nanoTime();
+        kvStore.remove(key);
+        metrics.record(REMOVE, start);
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        long start = System.nanoTime();
+        V oldValue = kvStore.getAndRemove(key);
+        metrics.record(REMOVE, start);
+        return oldValue;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        long start = System.nanoTime();
+        V oldValue = kvStore.putIfAbsent(key, value);
+        metrics.record(PUT, start);
+        return oldValue;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        long start = System.nanoTime();
+        V oldValue = kvStore.replace(key, value);
+        metrics.record(PUT, start);
+        return oldValue;
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        long start = System.nanoTime();
+        boolean replaced = kvStore.replaceIfEqual(key, oldValue, newValue);
+        metrics.record(PUT, start);
+        return replaced;
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        long start = System.nanoTime();
+        boolean removed = kvStore.removeIfEqual(key, value);
+        metrics.record(REMOVE, start);
+        return removed;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        long start = System.nanoTime();
+        V value = kvStore.compute(key, remapping);
+        metrics.record(PUT, start);
+        return value;
+    }
+
+    /**
+     * Recorded as a GET hit if the key was present, otherwise as a PUT.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        long start = System.nanoTime();
+        boolean[] absent = {false};
+        V value = kvStore.computeIfAbsent(key, k -> {
+            absent[0] = true;
+            return function.apply(k);
+        });
+        if (absent[0]) {
+            metrics.record(PUT, start);
+        } else {
+            metrics.record(GET, start);
+            metrics.hit(true);
+        }
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        long start = System.nanoTime();
+        V newValue = kvStore.merge(key, value, function);
+        metrics.record(PUT, start);
+        return newValue;
+    }
+
+    @Override
+    public V getUsing(K key, V value) {
+        long start = System.nanoTime();
+        V result = kvStore.getUsing(key, value);
+        metrics.record(GET, start);
+        metrics.hit(result != null);
+        if (result != null)
+            metrics.valueSize(result);
+        return result;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        long start = System.nanoTime();
+        boolean found = kvStore.containsKey(key);
+        metrics.record(CONTAINS_KEY, start);
+        metrics.hit(found);
+        return found;
+    }
+
+    @Override
+    public long size() {
+        long start = System.nanoTime();
+        long size = kvStore.size();
+        metrics.record(SIZE, start);
+        return size;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> entrySetIterator() {
+        long start = System.nanoTime();
+        Iterator<Map.Entry<K, V>> iterator = kvStore.entrySetIterator();
+        metrics.record(ITERATE, start);
+        return iterator;
+    }
+
+    @Override
+    public void keysFor(int segment, Consumer<K> kConsumer) {
+        long start = System.nanoTime();
+        kvStore.keysFor(segment, kConsumer);
+        metrics.record(ITERATE, start);
+    }
+
+    @Override
+    public void entriesFor(int segment, Consumer<Entry<K, V>> kvConsumer) {
+        long start = System.nanoTime();
+        kvStore.entriesFor(segment, kvConsumer);
+        metrics.record(ITERATE, start);
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        kvStore.clear();
+        metrics.record(CLEAR, start);
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsKeyValueStore{" + metrics + '}';
+    }
+}
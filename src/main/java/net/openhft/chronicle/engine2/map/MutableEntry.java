@@ -0,0 +1,37 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+
+/**
+ * An entry reused for each call of a callback, only valid during the callback.
+ */
+public class MutableEntry<K, V> implements KeyValueStore.Entry<K, V> {
+    private K key;
+    private V value;
+
+    public MutableEntry<K, V> set(K key, V value) {
+        this.key = key;
+        this.value = value;
+        return this;
+    }
+
+    @Override
+    public K key() {
+        return key;
+    }
+
+    @Override
+    public V value() {
+        return value;
+    }
+
+    @Override
+    public KeyValueStore.Entry<K, V> copy() {
+        return new VanillaEntry<>(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value;
+    }
+}
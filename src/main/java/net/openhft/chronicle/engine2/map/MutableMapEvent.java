@@ -0,0 +1,85 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.map.MapEvent;
+import net.openhft.chronicle.engine2.api.map.MapEventListener;
+
+/**
+ * An insert, update or removal which is reused for each event, only valid during the callback.
+ * Subscribers registered with <code>flyweight=true</code> receive these, use {@link #copy()} to keep
+ * one.
+ */
+public class MutableMapEvent<K, V> implements MapEvent<K, V> {
+    private K key;
+    private V oldValue;
+    private V value;
+    private boolean removed;
+    // set while being delivered so a nested notification on the same thread uses another event.
+    boolean inUse;
+
+    public MutableMapEvent<K, V> insert(K key, V value) {
+        return set(key, null, value, false);
+    }
+
+    public MutableMapEvent<K, V> update(K key, V oldValue, V value) {
+        return set(key, oldValue, value, false);
+    }
+
+    public MutableMapEvent<K, V> remove(K key, V oldValue) {
+        return set(key, null, oldValue, true);
+    }
+
+    private MutableMapEvent<K, V> set(K key, V oldValue, V value, boolean removed) {
+        this.key = key;
+        this.oldValue = oldValue;
+        this.value = value;
+        this.removed = removed;
+        return this;
+    }
+
+    @Override
+    public K key() {
+        return key;
+    }
+
+    /**
+     * @return the value replaced by an update, otherwise null.
+     */
+    public V oldValue() {
+        return oldValue;
+    }
+
+    /**
+     * @return the new value, or the value removed as for a RemovedEvent.
+     */
+    @Override
+    public V value() {
+        return value;
+    }
+
+    @Override
+    public void apply(MapEventListener<K, V> listener) {
+        if (removed)
+            listener.remove(key, value);
+        else if (oldValue == null)
+            listener.insert(key, value);
+        else
+            listener.update(key, oldValue, value);
+    }
+
+    @Override
+    public MapEvent<K, V> copy() {
+        return removed ? RemovedEvent.of(key, value)
+                : oldValue == null ? InsertedEvent.of(key, value)
+                : UpdatedEvent.of(key, oldValue, value);
+    }
+
+    @Override
+    public String toString() {
+        return "MutableMapEvent{" +
+                (removed ? "removed " : "") +
+                "key=" + key +
+                ", oldValue=" + oldValue +
+                ", value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,374 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine.queue.QueueView;
+import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.api.map.KeyValueStoreInterceptor;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
+
+/**
+ * A write-ahead journal of a map asset.  Each change is appended to a queue before it is made to
+ * the store, holding a lock for the key's segment so the journal has the changes to a key in the
+ * order the store has them.  Conditional operations are journalled as the put or remove they turn
+ * out to be.  The queue is memory mapped so the writing thread doesn't wait for the disk.
+ * <p>
+ * Rebuild the store with {@link #replay} before wrapping it, e.g.
+ * <pre>registerFactory(KeyValueStoreInterceptor.class, context -> {
+ *     QueueJournal journal = new QueueJournal(context, journalQueue);
+ *     journal.replay(context.item(), snapshotQueue);
+ *     return journal;
+ * });</pre>
+ * A snapshot writes the whole store to another queue with the journal index it covers, replaying
+ * loads the latest snapshot and then only the journal after that index.
+ */
+public class QueueJournal<K, V> extends AbstractKeyValueStore<K, V> implements KeyValueStoreInterceptor<K, V> {
+    static final int PUT = 0, REMOVE = 1, CLEAR = 2, SNAPSHOT_START = 3, SNAPSHOT_END = 4;
+    static final int REPLAY_BATCH = 4096;
+
+    private final QueueView journal;
+    private final Class<K> kClass;
+    private final Class<V> vClass;
+    private final ReentrantLock[] locks;
+    private final ThreadLocal<Wire> writeWire = ThreadLocal.withInitial(
+            () -> new BinaryWire(Bytes.elasticByteBuffer()));
+
+    /**
+     * @param context the store journalled is the item, the key and value classes are the types.
+     */
+    public QueueJournal(@NotNull FactoryContext<KeyValueStore<K, V>> context, @NotNull QueueView journal) {
+        super(context);
+        this.journal = journal;
+        this.kClass = context.type();
+        this.vClass = context.type2();
+        this.locks = new ReentrantLock[kvStore.segments()];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    public QueueJournal(@NotNull KeyValueStore<K, V> store, @NotNull QueueView journal,
+                        @NotNull Class<K> kClass, @NotNull Class<V> vClass) {
+        this(factoryContext(null).item(store).type(kClass).type2(vClass), journal);
+    }
+
+    private ReentrantLock lockFor(K key) {
+        ReentrantLock lock = locks[kvStore.segmentFor(key)];
+        lock.lock();
+        return lock;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            journal.append(record(PUT, key, value));
+            kvStore.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            journal.append(record(PUT, key, value));
+            return kvStore.getAndPut(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        getAndRemove(key);
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            if (!kvStore.containsKey(key))
+                return null;
+            journal.append(record(REMOVE, key, null));
+            return kvStore.getAndRemove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            V oldValue = kvStore.get(key);
+            if (oldValue == null) {
+                journal.append(record(PUT, key, value));
+                kvStore.put(key, value);
+            }
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            V oldValue = kvStore.get(key);
+            if (oldValue != null) {
+                journal.append(record(PUT, key, value));
+                kvStore.put(key, value);
+            }
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            if (!oldValue.equals(kvStore.get(key)))
+                return false;
+            journal.append(record(PUT, key, newValue));
+            kvStore.put(key, newValue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            if (!value.equals(kvStore.get(key)))
+                return false;
+            journal.append(record(REMOVE, key, null));
+            kvStore.remove(key);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The function is called holding the lock for the key's segment.  It can read the store, and
+     * change keys in the same segment as the lock is reentrant, but shouldn't change other keys.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            V oldValue = kvStore.get(key);
+            V newValue = remapping.apply(key, oldValue);
+            if (newValue != null) {
+                journal.append(record(PUT, key, newValue));
+                kvStore.put(key, newValue);
+
+            } else if (oldValue != null) {
+                journal.append(record(REMOVE, key, null));
+                kvStore.remove(key);
+            }
+            return newValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = kvStore.get(key);
+        if (value != null)
+            return value;
+        ReentrantLock lock = lockFor(key);
+        try {
+            value = kvStore.get(key);
+            if (value != null)
+                return value;
+            V newValue = function.apply(key);
+            if (newValue != null) {
+                journal.append(record(PUT, key, newValue));
+                kvStore.put(key, newValue);
+            }
+            return newValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return compute(key, (k, oldValue) -> oldValue == null ? value : function.apply(oldValue, value));
+    }
+
+    @Override
+    public void clear() {
+        for (ReentrantLock lock : locks)
+            lock.lock();
+        try {
+            journal.append(record(CLEAR, null, null));
+            kvStore.clear();
+        } finally {
+            for (ReentrantLock lock : locks)
+                lock.unlock();
+        }
+    }
+
+    private byte[] record(int type, @Nullable K key, @Nullable V value) {
+        Wire wire = writeWire.get();
+        Bytes bytes = wire.bytes();
+        bytes.clear();
+        ValueOut out = wire.getValueOut();
+        out.int32(type);
+        if (type == PUT || type == REMOVE)
+            out.object(key);
+        if (type == PUT)
+            wire.getValueOut().object(value);
+        return toArray(bytes);
+    }
+
+    private static byte[] toArray(Bytes bytes) {
+        ByteBuffer bb = (ByteBuffer) bytes.underlyingObject();
+        bb.position(0);
+        bb.limit((int) bytes.position());
+        byte[] array = new byte[bb.remaining()];
+        bb.get(array);
+        return array;
+    }
+
+    /**
+     * Appends every entry of the store to the snapshot queue between a start record and an end
+     * record holding the index of the journal it is consistent with.  Each segment is scanned
+     * holding its lock, so every change journalled up to that index has been made to the store
+     * before it is scanned.  Changes made during the snapshot may or may not be in it, they are
+     * all in the journal after that index so replaying them again gives the same result.  The
+     * queue can hold any number of snapshots, the last complete one is used.
+     *
+     * @return the journal index the snapshot covers.
+     */
+    public long snapshot(@NotNull QueueView snapshot) {
+        long journalIndex = journal.lastWrittenIndex();
+        long start = snapshot.append(record(SNAPSHOT_START, null, null));
+        for (int i = 0; i < locks.length; i++) {
+            locks[i].lock();
+            try {
+                kvStore.entriesFor(i, e -> snapshot.append(record(PUT, e.key(), e.value())));
+            } finally {
+                locks[i].unlock();
+            }
+        }
+
+        Wire wire = writeWire.get();
+        wire.bytes().clear();
+        wire.getValueOut().int32(SNAPSHOT_END);
+        wire.getValueOut().int64(journalIndex);
+        wire.getValueOut().int64(start);
+        snapshot.append(toArray(wire.bytes()));
+        return journalIndex;
+    }
+
+    /**
+     * Loads the last snapshot if it is complete, then the journal after it.  Call this before the
+     * store is used.
+     *
+     * @param snapshot the queue snapshots are taken to, or null to replay the whole journal.
+     */
+    public void replay(@NotNull KeyValueStore<K, V> store, @Nullable QueueView snapshot) {
+        Wire readWire = new BinaryWire(Bytes.elasticByteBuffer());
+        long from = 0;
+        long end = snapshot == null ? -1 : snapshot.lastWrittenIndex();
+        if (end >= 0) {
+            // the journal index covered and the start of the snapshot, -2 if the last snapshot
+            // didn't finish and can't be used.
+            long[] covered = {-2, -1};
+            snapshot.read(end, 1, (index, excerpt) -> {
+                ValueIn in = readFrom(readWire, excerpt);
+                if (in.int32() == SNAPSHOT_END) {
+                    covered[0] = in.int64();
+                    covered[1] = in.int64();
+                }
+            });
+            if (covered[0] >= -1) {
+                replay(readWire, snapshot, covered[1], end, store);
+                from = covered[0] + 1;
+            }
+        }
+        replay(readWire, journal, from, Long.MAX_VALUE, store);
+    }
+
+    /**
+     * Reads the queue in batches, grouping the records by the store's segment so the segments are
+     * applied in parallel. The records for a key are always applied in the order written.
+     */
+    private void replay(Wire readWire, QueueView queue, long from, long toExclusive, KeyValueStore<K, V> store) {
+        int segments = store.segments();
+        List<Object[]>[] bySegment = new List[segments];
+        for (int i = 0; i < segments; i++)
+            bySegment[i] = new ArrayList<>();
+
+        long[] next = {from};
+        while (next[0] < toExclusive) {
+            int count = queue.read(next[0], (int) Math.min(REPLAY_BATCH, toExclusive - next[0]), (index, excerpt) -> {
+                next[0] = index + 1;
+                ValueIn in = readFrom(readWire, excerpt);
+                int type = in.int32();
+                if (type == CLEAR) {
+                    // everything before the clear has to be applied first.
+                    apply(store, bySegment);
+                    store.clear();
+
+                } else if (type == PUT || type == REMOVE) {
+                    K key = in.object(kClass);
+                    V value = type == PUT ? readWire.getValueIn().object(vClass) : null;
+                    bySegment[store.segmentFor(key)].add(new Object[]{key, value});
+                }
+            });
+            if (count == 0)
+                break;
+            apply(store, bySegment);
+        }
+    }
+
+    private void apply(KeyValueStore<K, V> store, List<Object[]>[] bySegment) {
+        store.forEachSegment(i -> {
+            for (Object[] kv : bySegment[i]) {
+                if (kv[1] == null)
+                    store.remove((K) kv[0]);
+                else
+                    store.put((K) kv[0], (V) kv[1]);
+            }
+            bySegment[i].clear();
+        });
+    }
+
+    private static ValueIn readFrom(Wire readWire, byte[] excerpt) {
+        Bytes bytes = readWire.bytes();
+        bytes.clear();
+        bytes.write(excerpt);
+        bytes.flip();
+        return readWire.getValueIn();
+    }
+
+    @Override
+    public String toString() {
+        return "QueueJournal{lastWrittenIndex=" + journal.lastWrittenIndex() + '}';
+    }
+}
@@ -0,0 +1,89 @@
+package net.openhft.chronicle.engine2.map;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free ring buffer for any number of producers and one consumer.  Each slot has a
+ * sequence number so a producer claims a slot with one CAS and publishes it with an ordered write.
+ */
+final class RingBuffer<E> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        mask = size - 1;
+    }
+
+    /**
+     * @return false if the buffer is full.
+     */
+    boolean offer(E e) {
+        return tryAdd(e) >= 0;
+    }
+
+    /**
+     * @return the position the element was added at, or -1 if the buffer is full.
+     */
+    long tryAdd(E e) {
+        long pos = tail.get();
+        for (; ; ) {
+            int i = (int) pos & mask;
+            long diff = sequences.get(i) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements[i] = e;
+                    sequences.lazySet(i, pos + 1);
+                    return pos;
+                }
+                pos = tail.get();
+
+            } else if (diff < 0) {
+                return -1;
+
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Only called by the consumer.
+     *
+     * @return the next element or null if there isn't one yet.
+     */
+    E poll() {
+        long pos = head;
+        int i = (int) pos & mask;
+        if (sequences.get(i) != pos + 1)
+            return null;
+        E e = (E) elements[i];
+        elements[i] = null;
+        sequences.lazySet(i, pos + mask + 1);
+        head = pos + 1;
+        return e;
+    }
+
+    /**
+     * @return the position of the next element to poll, those before it have been polled.
+     */
+    long head() {
+        return head;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,109 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits a store by segment so a parallel stream reads the segments on different threads.  A
+ * segment left on its own is read into a list which can be split further.  The store can be
+ * changed while it is read so it is CONCURRENT and the sizes are estimates, using the size of each
+ * segment when the store knows it.  Only a read-only store is SIZED and SUBSIZED.
+ */
+public class SegmentSpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
+    private final KeyValueStore<K, V> kvStore;
+    private final int end;
+    private final boolean sized;
+    private int segment;
+    // the entries of a segment once read.
+    private Spliterator<Map.Entry<K, V>> current;
+
+    public SegmentSpliterator(KeyValueStore<K, V> kvStore) {
+        this(kvStore, 0, kvStore.segments());
+    }
+
+    SegmentSpliterator(KeyValueStore<K, V> kvStore, int segment, int end) {
+        this.kvStore = kvStore;
+        this.segment = segment;
+        this.end = end;
+        this.sized = kvStore.segmentSize(0) >= 0;
+    }
+
+    private static <K, V> Map.Entry<K, V> entry(KeyValueStore.Entry<K, V> e) {
+        return new AbstractMap.SimpleImmutableEntry<>(e.key(), e.value());
+    }
+
+    private Spliterator<Map.Entry<K, V>> read(int segment) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        kvStore.entriesFor(segment, e -> entries.add(entry(e)));
+        return entries.spliterator();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+        for (; ; ) {
+            if (current != null && current.tryAdvance(action))
+                return true;
+            if (segment >= end)
+                return false;
+            current = read(segment++);
+        }
+    }
+
+    /**
+     * Passes the entries of the remaining segments without reading them into a list first.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+        if (current != null) {
+            current.forEachRemaining(action);
+            current = null;
+        }
+        for (; segment < end; segment++)
+            kvStore.entriesFor(segment, e -> action.accept(entry(e)));
+    }
+
+    @Override
+    public Spliterator<Map.Entry<K, V>> trySplit() {
+        if (current == null) {
+            int remaining = end - segment;
+            if (remaining > 1) {
+                int mid = segment + remaining / 2;
+                SegmentSpliterator<K, V> prefix = new SegmentSpliterator<>(kvStore, segment, mid);
+                segment = mid;
+                return prefix;
+            }
+            if (remaining == 1)
+                current = read(segment++);
+            else
+                return null;
+        }
+        return current.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = current == null ? 0 : current.estimateSize();
+        if (segment >= end)
+            return size;
+        if (!sized) {
+            int segments = kvStore.segments();
+            return size + kvStore.size() * (end - segment) / segments;
+        }
+        for (int i = segment; i < end; i++)
+            size += kvStore.segmentSize(i);
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        if (sized && kvStore.isReadOnly())
+            return DISTINCT | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        return DISTINCT | NONNULL | CONCURRENT;
+    }
+}
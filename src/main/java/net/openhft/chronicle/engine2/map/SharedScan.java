@@ -0,0 +1,162 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * One scan of a store shared by the subscribers bootstrapping at about the same time.  A
+ * subscriber can join while the scan is running and is sent every segment started after it
+ * joined.  Once the scan is done, each subscriber reads the segments it missed and goes live.
+ * Each segment is read holding its scan lock, which pauses the writers of that segment only.
+ */
+final class SharedScan<K, V> implements Runnable {
+    private final KeyValueStore<K, V> kvStore;
+    private final IntFunction<Lock> scanLock;
+    private final AtomicReference<SharedScan<K, V>> current;
+    private final List<Participant<K, V>> participants = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param current where this scan is found by the subscribers joining it, cleared when it's done.
+     */
+    SharedScan(KeyValueStore<K, V> kvStore, IntFunction<Lock> scanLock, AtomicReference<SharedScan<K, V>> current) {
+        this.kvStore = kvStore;
+        this.scanLock = scanLock;
+        this.current = current;
+    }
+
+    /**
+     * @return false if the scan has finished and the participant should start another.
+     */
+    synchronized boolean join(Participant<K, V> participant) {
+        if (closed)
+            return false;
+        participants.add(participant);
+        return true;
+    }
+
+    private synchronized List<Participant<K, V>> participants() {
+        return new ArrayList<>(participants);
+    }
+
+    private synchronized List<Participant<K, V>> close() {
+        closed = true;
+        current.compareAndSet(this, null);
+        return participants;
+    }
+
+    /**
+     * Runs the scan on the fork-join pool after windowMillis, giving other subscribers time to
+     * join before it starts.
+     */
+    void runAfter(long windowMillis) {
+        if (windowMillis <= 0)
+            ForkJoinPool.commonPool().execute(this);
+        else
+            TimerWheel.SHARED.schedule(() -> ForkJoinPool.commonPool().execute(this), windowMillis);
+    }
+
+    @Override
+    public void run() {
+        try {
+            kvStore.forEachSegment(this::scan);
+        } finally {
+            for (Participant<K, V> participant : close())
+                participant.complete(kvStore, scanLock);
+        }
+    }
+
+    private void scan(int segment) {
+        List<Participant<K, V>> participants = participants();
+        if (participants.isEmpty())
+            return;
+        Lock lock = scanLock.apply(segment);
+        lock.lock();
+        try {
+            kvStore.entriesFor(segment, e -> {
+                for (Participant<K, V> participant : participants)
+                    participant.accept(e);
+            });
+        } finally {
+            lock.unlock();
+        }
+        for (Participant<K, V> participant : participants)
+            participant.covered(segment);
+    }
+
+    static final class Participant<K, V> {
+        private final Bootstrap<?> bootstrap;
+        private final Consumer<KeyValueStore.Entry<K, V>> snapshot;
+        private final BitSet covered = new BitSet();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        /**
+         * @param snapshot passes an entry to the Bootstrap, it is called by one thread at a time.
+         */
+        Participant(Bootstrap<?> bootstrap, Consumer<KeyValueStore.Entry<K, V>> snapshot) {
+            this.bootstrap = bootstrap;
+            this.snapshot = snapshot;
+        }
+
+        synchronized void accept(KeyValueStore.Entry<K, V> entry) {
+            snapshot.accept(entry);
+        }
+
+        synchronized void covered(int segment) {
+            covered.set(segment);
+        }
+
+        void complete(KeyValueStore<K, V> kvStore, IntFunction<Lock> scanLock) {
+            try {
+                try {
+                    for (int i = 0, segments = kvStore.segments(); i < segments; i++) {
+                        if (isCovered(i))
+                            continue;
+                        Lock lock = scanLock.apply(i);
+                        lock.lock();
+                        try {
+                            kvStore.entriesFor(i, this::accept);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                } finally {
+                    bootstrap.finish();
+                }
+                done.complete(null);
+
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        }
+
+        private synchronized boolean isCovered(int segment) {
+            return covered.get(segment);
+        }
+
+        /**
+         * Waits for a bootstrap=true subscriber to be sent its snapshot.
+         */
+        void await() {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Jvm.rethrow(e);
+            } catch (ExecutionException e) {
+                throw Jvm.rethrow(e.getCause());
+            }
+        }
+    }
+}
@@ -1,26 +1,74 @@
 package net.openhft.chronicle.engine2.map;
 
+import net.openhft.chronicle.engine2.api.Filter;
+import net.openhft.chronicle.engine2.api.QueryOptions;
 import net.openhft.chronicle.engine2.api.Subscriber;
 import net.openhft.chronicle.engine2.api.Subscription;
 import net.openhft.chronicle.engine2.api.TopicSubscriber;
 import net.openhft.chronicle.engine2.api.map.KeyValueStore;
 import net.openhft.chronicle.engine2.api.map.MapEvent;
+import net.openhft.chronicle.engine2.api.map.SingleKeySubscriber;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Created by peter on 22/05/15.
  */
 public class SubscriptionKVSCollection<K, V> implements Subscription {
     final Set<TopicSubscriber<V>> topicSubscribers = new CopyOnWriteArraySet<>();
+    // SingleKeySubscribers by key, a change only visits the subscribers for its key.
+    final ConcurrentMap<K, Set<TopicSubscriber<V>>> keyedSubscribers = new ConcurrentHashMap<>();
+    // SingleKeySubscribers whose name can't be converted to the store's key type, by name.
+    final ConcurrentMap<String, Set<TopicSubscriber<V>>> namedSubscribers = new ConcurrentHashMap<>();
     final Set<Subscriber<KeyValueStore.Entry<K, V>>> subscribers = new CopyOnWriteArraySet<>();
     final Set<Subscriber<K>> keySubscribers = new CopyOnWriteArraySet<>();
-    boolean hasSubscribers = false;
+    // registered with flyweight=true, they get an event reused per thread.
+    final Set<Subscriber<MapEvent<K, V>>> flyweightSubscribers = new CopyOnWriteArraySet<>();
+    // registered with conditions in the query string, tested before an event is created.
+    final Set<FilteredSubscriber> filteredSubscribers = new CopyOnWriteArraySet<>();
+    final ThreadLocal<MutableMapEvent<K, V>> flyweightEvent = ThreadLocal.withInitial(MutableMapEvent::new);
+    // subscribers registered with async=true or bootstrap, and the wrapper added in their place.
+    final Map<Object, Registration> wrappedSubscribers = new ConcurrentHashMap<>();
+    // the bootstrap scan new subscribers join, null when there isn't one running.
+    final AtomicReference<SharedScan<K, V>> sharedScan = new AtomicReference<>();
+    // held shared by a writer while it changes and notifies a key, exclusively by a bootstrap scan
+    // of the segment, so the scan never sees a change which hasn't been notified.
+    final ReentrantReadWriteLock[] segmentLocks;
+    // only changed by updateHasSubscribers(), read without locking by the writers.
+    volatile boolean hasSubscribers = false;
     final KeyValueStore<K, V> kvStore;
 
     public SubscriptionKVSCollection(KeyValueStore<K, V> kvStore) {
         this.kvStore = kvStore;
+        segmentLocks = new ReentrantReadWriteLock[kvStore.segments()];
+        for (int i = 0; i < segmentLocks.length; i++)
+            segmentLocks[i] = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * The lock a writer holds while it changes the key and notifies the change.  A subscriber
+     * called under it mustn't register with bootstrap=true on the same store.
+     */
+    public Lock changeLock(K key) {
+        return segmentLocks[kvStore.segmentFor(key) % segmentLocks.length].readLock();
+    }
+
+    Lock scanLock(int segment) {
+        // the store can be replaced by one with more segments, they share locks.
+        ReentrantReadWriteLock lock = segmentLocks[segment % segmentLocks.length];
+        if (lock.getReadHoldCount() > 0)
+            throw new IllegalStateException("Can't bootstrap from a subscriber to the same store, use bootstrap=async");
+        return lock.writeLock();
     }
 
     public void notifyUpdate(K key, V oldValue, V value) {
@@ -33,6 +81,7 @@ public class SubscriptionKVSCollection<K, V> implements Subscription {
             String key2 = key.toString();
             topicSubscribers.forEach(ts -> ts.on(key2, value));
         }
+        notifyKeyed(key, value);
         if (!subscribers.isEmpty()) {
             if (oldValue == null) {
                 InsertedEvent<K, V> inserted = InsertedEvent.of(key, value);
@@ -46,6 +95,119 @@ public class SubscriptionKVSCollection<K, V> implements Subscription {
         if (!keySubscribers.isEmpty()) {
             keySubscribers.forEach(s -> s.on(key));
         }
+        if (!filteredSubscribers.isEmpty())
+            notifyFiltered(key, oldValue, value);
+        if (!flyweightSubscribers.isEmpty()) {
+            MutableMapEvent<K, V> event = acquireFlyweight();
+            notifyFlyweight(oldValue == null ? event.insert(key, value) : event.update(key, oldValue, value));
+        }
+    }
+
+    private void notifyKeyed(K key, V value) {
+        Set<TopicSubscriber<V>> subscribers = keyedSubscribers.isEmpty() ? null : keyedSubscribers.get(key);
+        String topic = null;
+        if (subscribers != null) {
+            topic = key.toString();
+            for (TopicSubscriber<V> subscriber : subscribers)
+                subscriber.on(topic, value);
+        }
+        if (!namedSubscribers.isEmpty()) {
+            if (topic == null)
+                topic = key.toString();
+            subscribers = namedSubscribers.get(topic);
+            if (subscribers != null)
+                for (TopicSubscriber<V> subscriber : subscribers)
+                    subscriber.on(topic, value);
+        }
+    }
+
+    /**
+     * @return the key a single key subscription is for, or null if its name can't be converted to
+     * the store's key type, in which case it is matched by the key's toString().
+     */
+    @Nullable
+    K keyFor(String name) {
+        Class<K> keyType = kvStore.keyType();
+        if (keyType == null || keyType == String.class || keyType == CharSequence.class || keyType == Object.class)
+            return (K) name;
+        try {
+            if (keyType == Long.class)
+                return (K) Long.valueOf(name);
+            if (keyType == Integer.class)
+                return (K) Integer.valueOf(name);
+            if (keyType == Short.class)
+                return (K) Short.valueOf(name);
+            if (keyType == Byte.class)
+                return (K) Byte.valueOf(name);
+        } catch (NumberFormatException e) {
+            // no key of this type has this name.
+        }
+        return null;
+    }
+
+    /**
+     * Finds the entry by scanning the keys, for a name which isn't a key.
+     */
+    @Nullable
+    private V valueNamed(String name) {
+        Object[] value = {null};
+        kvStore.forEachSegment(i -> kvStore.entriesFor(i, e -> {
+            if (name.equals(e.key().toString()))
+                value[0] = e.value();
+        }));
+        return (V) value[0];
+    }
+
+    /**
+     * Tests both the old and the new value.  An entry which starts to match is an insert for the
+     * subscriber, and one which stops matching, or is removed, is a removal.
+     *
+     * @param value the new value, null if the entry was removed.
+     */
+    private void notifyFiltered(K key, V oldValue, V value) {
+        MapEvent<K, V> inserted = null, updated = null, removed = null;
+        String topic = null;
+        for (FilteredSubscriber filtered : filteredSubscribers) {
+            boolean matches = value != null && filtered.filter.test(key, value);
+            boolean matched = oldValue != null && filtered.filter.test(key, oldValue);
+            if (!matches && !matched)
+                continue;
+            switch (filtered.kind) {
+                case TOPIC:
+                    if (topic == null)
+                        topic = key.toString();
+                    ((TopicSubscriber<V>) filtered.subscriber).on(topic, matches ? value : null);
+                    break;
+                case KEY:
+                    ((Subscriber<K>) filtered.subscriber).on(key);
+                    break;
+                default:
+                    MapEvent<K, V> event;
+                    if (!matches)
+                        event = removed == null ? removed = RemovedEvent.of(key, oldValue) : removed;
+                    else if (!matched)
+                        event = inserted == null ? inserted = InsertedEvent.of(key, value) : inserted;
+                    else
+                        event = updated == null ? updated = UpdatedEvent.of(key, oldValue, value) : updated;
+                    ((Subscriber<MapEvent<K, V>>) filtered.subscriber).on(event);
+            }
+        }
+    }
+
+    private MutableMapEvent<K, V> acquireFlyweight() {
+        MutableMapEvent<K, V> event = flyweightEvent.get();
+        // a subscriber changing this store while handling the event.
+        return event.inUse ? new MutableMapEvent<>() : event;
+    }
+
+    private void notifyFlyweight(MutableMapEvent<K, V> event) {
+        event.inUse = true;
+        try {
+            for (Subscriber<MapEvent<K, V>> subscriber : flyweightSubscribers)
+                subscriber.on(event);
+        } finally {
+            event.inUse = false;
+        }
     }
 
     public void notifyRemoval(K key, V oldValue) {
@@ -58,6 +220,7 @@ public class SubscriptionKVSCollection<K, V> implements Subscription {
             String key2 = key.toString();
             topicSubscribers.forEach(ts -> ts.on(key2, null));
         }
+        notifyKeyed(key, null);
         if (!subscribers.isEmpty()) {
             RemovedEvent<K, V> removed = RemovedEvent.of(key, oldValue);
             subscribers.forEach(s -> s.on(removed));
@@ -65,46 +228,249 @@ public class SubscriptionKVSCollection<K, V> implements Subscription {
         if (!keySubscribers.isEmpty()) {
             keySubscribers.forEach(s -> s.on(key));
         }
+        if (!filteredSubscribers.isEmpty())
+            notifyFiltered(key, oldValue, null);
+        if (!flyweightSubscribers.isEmpty())
+            notifyFlyweight(acquireFlyweight().remove(key, oldValue));
     }
 
     @Override
     public <E> void registerSubscriber(Class<E> eClass, Subscriber<E> subscriber, String query) {
-        boolean bootstrap = query.contains("bootstrap=true");
-        if (eClass == KeyValueStore.Entry.class || eClass == MapEvent.class) {
-            subscribers.add((Subscriber) subscriber);
-            if (bootstrap) {
-                for (int i = 0; i < kvStore.segments(); i++)
-                    kvStore.entriesFor(i, e -> subscriber.on((E) InsertedEvent.of(e.key(), e.value())));
-            }
-        } else {
-            keySubscribers.add((Subscriber<K>) subscriber);
-            if (bootstrap) {
-                for (int i = 0; i < kvStore.segments(); i++)
-                    kvStore.keysFor(i, k -> subscriber.on((E) k));
-            }
+        QueryOptions options = QueryOptions.of(query);
+        Filter filter = options.filter();
+        boolean entries = eClass == KeyValueStore.Entry.class || eClass == MapEvent.class;
+        Function<E, Object> keyOf = entries ? e -> ((KeyValueStore.Entry) e).key() : e -> e;
+        Subscriber<E> target = subscriber;
+        AsyncDispatcher<E> dispatcher = null;
+        if (options.getBoolean("async", false)) {
+            dispatcher = new AsyncDispatcher<>(subscriber::on, keyOf, options);
+            target = dispatcher::accept;
+        }
+        // an async subscriber holds on to events after on() returns so it can't have a flyweight.
+        boolean flyweight = entries && dispatcher == null && filter.isAll() && options.getBoolean("flyweight", false);
+
+        Subscriber<E> s = target;
+        Bootstrap<E> bootstrap = null;
+        if (options.bootstrap()) {
+            bootstrap = new Bootstrap<>(target::on, keyOf,
+                    entries ? e -> (E) ((KeyValueStore.Entry) e).copy() : e -> e);
+            s = bootstrap::accept;
+        }
+        if (s != subscriber)
+            wrappedSubscribers.put(subscriber, new Registration(s, dispatcher == null ? null : dispatcher::close));
+
+        if (!filter.isAll())
+            filteredSubscribers.add(new FilteredSubscriber(filter, entries ? Kind.ENTRY : Kind.KEY, s));
+        else if (flyweight)
+            flyweightSubscribers.add((Subscriber) s);
+        else if (entries)
+            subscribers.add((Subscriber) s);
+        else
+            keySubscribers.add((Subscriber<K>) s);
+        updateHasSubscribers();
+
+        if (bootstrap != null) {
+            Bootstrap<E> b = bootstrap;
+            MutableMapEvent<K, V> event = flyweight ? new MutableMapEvent<>() : null;
+            bootstrap(b, options, e -> {
+                if (filter.test(e.key(), e.value()))
+                    b.snapshot(e.key(), !entries ? (E) e.key()
+                            : flyweight ? (E) event.insert(e.key(), e.value())
+                            : (E) InsertedEvent.of(e.key(), e.value()));
+            });
         }
-        hasSubscribers = true;
     }
 
     @Override
     public <E> void registerSubscriber(Class<E> eClass, TopicSubscriber<E> subscriber, String query) {
-        boolean bootstrap = query.contains("bootstrap=true");
-        topicSubscribers.add((TopicSubscriber<V>) subscriber);
-        if (bootstrap) {
-            for (int i = 0; i < kvStore.segments(); i++)
-                kvStore.entriesFor(i, (KeyValueStore.Entry<K, V> e) -> subscriber.on(e.key().toString(), (E) e.value()));
+        QueryOptions options = QueryOptions.of(query);
+        Filter filter = options.filter();
+        TopicSubscriber<E> target = subscriber;
+        AsyncDispatcher<KeyValueStore.Entry<String, E>> dispatcher = null;
+        if (options.getBoolean("async", false)) {
+            AsyncDispatcher<KeyValueStore.Entry<String, E>> d = dispatcher = new AsyncDispatcher<>(
+                    e -> subscriber.on(e.key(), e.value()), KeyValueStore.Entry::key, options);
+            target = (name, message) -> d.accept(new VanillaEntry<>(name, message));
+        }
+        ThrottledTopicSubscriber<E> throttled = null;
+        long throttleMillis = options.getMillis("throttle", 0);
+        if (throttleMillis > 0)
+            target = throttled = new ThrottledTopicSubscriber<>(target, throttleMillis);
+
+        TopicSubscriber<E> s = target;
+        Bootstrap<KeyValueStore.Entry<String, E>> bootstrap = null;
+        if (options.bootstrap()) {
+            TopicSubscriber<E> t = target;
+            Bootstrap<KeyValueStore.Entry<String, E>> b = bootstrap = new Bootstrap<>(
+                    e -> t.on(e.key(), e.value()), KeyValueStore.Entry::key, e -> e);
+            s = (name, message) -> {
+                if (b.isLive())
+                    t.on(name, message);
+                else
+                    b.accept(new VanillaEntry<>(name, message));
+            };
+        }
+        if (s != subscriber) {
+            AsyncDispatcher<?> d = dispatcher;
+            ThrottledTopicSubscriber<E> t = throttled;
+            wrappedSubscribers.put(subscriber, new Registration(s, () -> {
+                if (t != null)
+                    t.close();
+                if (d != null)
+                    d.close();
+            }));
+        }
+
+        String singleKey = subscriber instanceof SingleKeySubscriber ? ((SingleKeySubscriber) subscriber).key() : null;
+        K key = singleKey == null ? null : keyFor(singleKey);
+        if (key != null)
+            keyedSubscribers.compute(key, (k, set) -> addTo(set, (TopicSubscriber<V>) s));
+        else if (singleKey != null)
+            namedSubscribers.compute(singleKey, (k, set) -> addTo(set, (TopicSubscriber<V>) s));
+        else if (!filter.isAll())
+            filteredSubscribers.add(new FilteredSubscriber(filter, Kind.TOPIC, s));
+        else
+            topicSubscribers.add((TopicSubscriber<V>) s);
+        updateHasSubscribers();
+
+        if (bootstrap != null) {
+            Bootstrap<KeyValueStore.Entry<String, E>> b = bootstrap;
+            if (singleKey != null) {
+                V value = key != null ? kvStore.get(key) : valueNamed(singleKey);
+                if (value != null)
+                    b.snapshot(singleKey, new VanillaEntry<>(singleKey, (E) value));
+                b.finish();
+
+            } else {
+                bootstrap(b, options, e -> {
+                    if (filter.test(e.key(), e.value())) {
+                        String topic = e.key().toString();
+                        b.snapshot(topic, new VanillaEntry<>(topic, (E) e.value()));
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Adds inside the map's compute so it can't race with an unregister dropping the empty set.
+     */
+    private static <T> Set<T> addTo(@Nullable Set<T> set, T subscriber) {
+        if (set == null)
+            set = ConcurrentHashMap.newKeySet();
+        set.add(subscriber);
+        return set;
+    }
+
+    /**
+     * Sends the snapshot and then the changes made meanwhile.  Bootstraps at about the same time
+     * share one scan of the store.  With bootstrap=async the scan runs on the fork-join pool,
+     * bootstrapWindow milliseconds later so others can join it.  With bootstrap=true the caller
+     * runs a scan of its own straight away, which others can join, rather than waiting for the
+     * window of an async scan.
+     */
+    private void bootstrap(Bootstrap<?> bootstrap, QueryOptions options, Consumer<KeyValueStore.Entry<K, V>> snapshot) {
+        SharedScan.Participant<K, V> participant = new SharedScan.Participant<>(bootstrap, snapshot);
+        if (!options.bootstrapAsync()) {
+            SharedScan<K, V> scan = new SharedScan<>(kvStore, this::scanLock, sharedScan);
+            scan.join(participant);
+            sharedScan.compareAndSet(null, scan);
+            scan.run();
+            participant.await();
+            return;
+        }
+        for (; ; ) {
+            SharedScan<K, V> scan = sharedScan.get();
+            if (scan != null && scan.join(participant))
+                break;
+            SharedScan<K, V> created = new SharedScan<>(kvStore, this::scanLock, sharedScan);
+            created.join(participant);
+            if (sharedScan.compareAndSet(scan, created)) {
+                created.runAfter(options.getLong("bootstrapWindow", 0));
+                break;
+            }
         }
-        hasSubscribers = true;
     }
 
     @Override
     public <E> void unregisterSubscriber(Class<E> eClass, Subscriber<E> subscriber, String query) {
-        throw new UnsupportedOperationException("todo");
+        Object s = registered(subscriber);
+        subscribers.remove(s);
+        keySubscribers.remove(s);
+        flyweightSubscribers.remove(s);
+        filteredSubscribers.removeIf(f -> f.subscriber == s);
+        updateHasSubscribers();
     }
 
     @Override
     public <E> void unregisterSubscriber(Class<E> eClass, TopicSubscriber<E> subscriber, String query) {
-        topicSubscribers.remove(subscriber);
-        hasSubscribers = !topicSubscribers.isEmpty() && !subscribers.isEmpty();
+        Object s = registered(subscriber);
+        if (subscriber instanceof SingleKeySubscriber) {
+            String name = ((SingleKeySubscriber) subscriber).key();
+            K key = keyFor(name);
+            if (key != null)
+                keyedSubscribers.computeIfPresent(key, (k, set) -> {
+                    set.remove(s);
+                    return set.isEmpty() ? null : set;
+                });
+            else
+                namedSubscribers.computeIfPresent(name, (k, set) -> {
+                    set.remove(s);
+                    return set.isEmpty() ? null : set;
+                });
+        } else {
+            topicSubscribers.remove(s);
+            filteredSubscribers.removeIf(f -> f.subscriber == s);
+        }
+        updateHasSubscribers();
+    }
+
+    /**
+     * @return the subscriber as it was added, closing its dispatcher or throttle if it had one.
+     */
+    private Object registered(Object subscriber) {
+        Registration registration = wrappedSubscribers.remove(subscriber);
+        if (registration == null)
+            return subscriber;
+        if (registration.onUnregister != null)
+            registration.onUnregister.run();
+        return registration.registered;
+    }
+
+    /**
+     * Recomputed after every change under a lock, so a register and an unregister can't leave
+     * the result of a stale check behind.
+     */
+    private synchronized void updateHasSubscribers() {
+        hasSubscribers = !topicSubscribers.isEmpty() || !keyedSubscribers.isEmpty() || !namedSubscribers.isEmpty() || !subscribers.isEmpty() || !keySubscribers.isEmpty()
+                || !flyweightSubscribers.isEmpty() || !filteredSubscribers.isEmpty();
+    }
+
+    enum Kind {
+        TOPIC, ENTRY, KEY
+    }
+
+    static class FilteredSubscriber {
+        final Filter filter;
+        final Kind kind;
+        final Object subscriber;
+
+        FilteredSubscriber(Filter filter, Kind kind, Object subscriber) {
+            this.filter = filter;
+            this.kind = kind;
+            this.subscriber = subscriber;
+        }
+    }
+
+    static class Registration {
+        final Object registered;
+        // closes the async dispatcher or throttle added for the subscriber.
+        @Nullable
+        final Runnable onUnregister;
+
+        Registration(Object registered, @Nullable Runnable onUnregister) {
+            this.registered = registered;
+            this.onUnregister = onUnregister;
+        }
     }
 }
@@ -0,0 +1,60 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends a subscriber at most one message per topic per interval, the latest, for
+ * <code>throttle=50ms</code>.  The first change starts the interval on the shared TimerWheel and
+ * the messages held at the end of it are sent on the fork-join pool.
+ */
+final class ThrottledTopicSubscriber<E> implements TopicSubscriber<E> {
+    // held for a topic removed, as the map can't hold null.
+    private static final Object REMOVED = new Object();
+
+    private final TopicSubscriber<E> subscriber;
+    private final long intervalMillis;
+    private final ConcurrentMap<String, Object> latest = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    ThrottledTopicSubscriber(TopicSubscriber<E> subscriber, long intervalMillis) {
+        this.subscriber = subscriber;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public void on(String topic, E message) {
+        latest.put(topic, message == null ? REMOVED : message);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!closed && scheduled.compareAndSet(false, true))
+            TimerWheel.SHARED.schedule(() -> ForkJoinPool.commonPool().execute(this::flush), intervalMillis);
+    }
+
+    void flush() {
+        try {
+            for (String topic : latest.keySet()) {
+                Object message = latest.remove(topic);
+                if (message != null && !closed)
+                    subscriber.on(topic, message == REMOVED ? null : (E) message);
+            }
+        } finally {
+            scheduled.set(false);
+            // a message which arrived while this was sending.
+            if (!latest.isEmpty())
+                schedule();
+        }
+    }
+
+    void close() {
+        closed = true;
+        latest.clear();
+    }
+}
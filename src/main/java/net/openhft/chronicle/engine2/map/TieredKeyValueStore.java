@@ -0,0 +1,294 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.Subscription;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps the frequently read entries of a slower store, e.g. a {@link FilePerKeyValueStore}, in a
+ * bounded map on the heap.  The underlying store holds every entry, writes go to it and then
+ * drop the key from the hot tier so the next read loads the new value.
+ * <p>
+ * Once the hot tier is full a key read from the cold store is only admitted if it has been read
+ * more often recently than the entry which has been in the hot tier longest, which is then
+ * evicted (TinyLFU admission).  Concurrent misses for the same key share one load.
+ */
+public class TieredKeyValueStore<K, V> extends AbstractKeyValueStore<K, V> {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final ConcurrentHashMap<K, V> hot;
+    // the keys in the hot tier, oldest first, only used holding its lock.
+    private final LinkedHashSet<K> admitted = new LinkedHashSet<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // incremented after each write to the cold store, before the hot tier is updated.
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * The capacity of the hot tier is the <code>hotCapacity</code> query option.
+     */
+    public TieredKeyValueStore(FactoryContext<KeyValueStore<K, V>> context) {
+        this(context, (int) context.queryOptions().getLong("hotCapacity", DEFAULT_CAPACITY));
+    }
+
+    public TieredKeyValueStore(FactoryContext<KeyValueStore<K, V>> context, int capacity) {
+        super(context);
+        if (capacity < 1) throw new IllegalArgumentException("capacity: " + capacity);
+        this.capacity = capacity;
+        hot = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        sketch = new FrequencySketch(capacity);
+        // files can change underneath us.
+        if (kvStore instanceof Subscription) {
+            Class kClass = context.type() == null ? Object.class : context.type();
+            ((Subscription) kvStore).registerSubscriber(kClass, (Subscriber<K>) this::invalidate, "");
+        }
+    }
+
+    private void invalidate(K key) {
+        written(key);
+    }
+
+    /**
+     * The value is copied into the one supplied as {@link LongKeyValueStore#getUsing} does, so
+     * the caller doesn't get the instance held by the hot tier.
+     */
+    @Override
+    public V getUsing(K key, V value) {
+        sketch.increment(key);
+        V v = hot.get(key);
+        if (v != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            v = load(key);
+        }
+        return LongKeyValueStore.copyUsing(v, value);
+    }
+
+    private V load(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> prev = loading.putIfAbsent(key, future);
+        if (prev != null) {
+            try {
+                return prev.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Jvm.rethrow(e);
+            } catch (ExecutionException e) {
+                throw Jvm.rethrow(e.getCause());
+            }
+        }
+        try {
+            long writes = this.writes.get();
+            V v = kvStore.getUsing(key, null);
+            if (v != null)
+                admit(key, v, writes);
+            future.complete(v);
+            return v;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * @param writes the write count before the value was read, if there has been a write since
+     *               the value might be stale so it is not kept.
+     */
+    private void admit(K key, V value, long writes) {
+        synchronized (admitted) {
+            if (hot.size() >= capacity && !hot.containsKey(key)) {
+                Iterator<K> oldest = admitted.iterator();
+                if (oldest.hasNext()) {
+                    K victim = oldest.next();
+                    if (sketch.frequency(key) <= sketch.frequency(victim))
+                        return;
+                    oldest.remove();
+                    hot.remove(victim);
+                }
+            }
+            if (hot.put(key, value) == null)
+                admitted.add(key);
+            // a write after this check removes the entry itself.
+            if (this.writes.get() != writes) {
+                hot.remove(key);
+                admitted.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        V oldValue = kvStore.getAndPut(key, value);
+        written(key);
+        return oldValue;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        kvStore.put(key, value);
+        written(key);
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        V oldValue = kvStore.getAndRemove(key);
+        written(key);
+        return oldValue;
+    }
+
+    @Override
+    public void remove(K key) {
+        kvStore.remove(key);
+        written(key);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V oldValue = kvStore.putIfAbsent(key, value);
+        if (oldValue == null)
+            written(key);
+        return oldValue;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        V oldValue = kvStore.replace(key, value);
+        if (oldValue != null)
+            written(key);
+        return oldValue;
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        if (!kvStore.replaceIfEqual(key, oldValue, newValue))
+            return false;
+        written(key);
+        return true;
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        if (!kvStore.removeIfEqual(key, value))
+            return false;
+        written(key);
+        return true;
+    }
+
+    /*
+     * The functions below record whether they changed the value, so the hot tier is only
+     * invalidated when the entry was written.
+     */
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        boolean[] changed = {false};
+        V value = kvStore.compute(key, (k, oldValue) -> {
+            V newValue = remapping.apply(k, oldValue);
+            changed[0] = newValue != oldValue;
+            return newValue;
+        });
+        if (changed[0])
+            written(key);
+        return value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        boolean[] changed = {false};
+        V value = kvStore.computeIfAbsent(key, k -> {
+            V newValue = function.apply(k);
+            changed[0] = newValue != null;
+            return newValue;
+        });
+        if (changed[0])
+            written(key);
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        // the function isn't called when the value is added.
+        boolean[] changed = {true};
+        V newValue = kvStore.merge(key, value, (oldValue, v) -> {
+            V merged = function.apply(oldValue, v);
+            changed[0] = merged != oldValue;
+            return merged;
+        });
+        if (changed[0])
+            written(key);
+        return newValue;
+    }
+
+    /**
+     * Drops the key from the hot tier.  Only a load which started before the increment could add
+     * it back, and that load's admit sees the write and removes it.
+     */
+    private void written(K key) {
+        writes.incrementAndGet();
+        if (hot.containsKey(key)) {
+            synchronized (admitted) {
+                if (hot.remove(key) != null)
+                    admitted.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return hot.containsKey(key) || kvStore.containsKey(key);
+    }
+
+    @Override
+    public void clear() {
+        kvStore.clear();
+        writes.incrementAndGet();
+        synchronized (admitted) {
+            hot.clear();
+            admitted.clear();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hits = hits(), total = hits + misses();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    public int hotSize() {
+        return hot.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TieredKeyValueStore{" +
+                "hot=" + hot.size() + "/" + capacity +
+                ", hitRate=" + hitRate() +
+                ", cold=" + kvStore +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package net.openhft.chronicle.engine2.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel run by one daemon thread, shared so that timed subscriptions don't need a
+ * thread each.  Tasks are run on the wheel's thread so they should be short, handing off to
+ * another pool for anything else.  The thread parks while nothing is scheduled.
+ */
+final class TimerWheel implements Runnable {
+    static final TimerWheel SHARED = new TimerWheel("engine-timer-wheel", 1, 512);
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long start = System.nanoTime();
+    private final Thread thread;
+    private volatile boolean idle = false;
+    // used by the wheel's thread only.
+    private long tick = 0;
+    private int pending = 0;
+
+    TimerWheel(String name, long tickMillis, int slots) {
+        assert Integer.bitCount(slots) == 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new List[slots];
+        for (int i = 0; i < slots; i++)
+            wheel[i] = new ArrayList<>();
+        this.mask = slots - 1;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the task on the wheel's thread after at least delayMillis, to the resolution of a tick.
+     */
+    void schedule(Runnable task, long delayMillis) {
+        added.add(new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+        if (idle)
+            LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        for (; ; ) {
+            if (pending == 0 && added.isEmpty()) {
+                idle = true;
+                if (added.isEmpty())
+                    LockSupport.park(this);
+                idle = false;
+                // the wheel didn't turn while parked.
+                tick = Math.max(tick, currentTick());
+                continue;
+            }
+            for (Timeout timeout; (timeout = added.poll()) != null; )
+                add(timeout);
+            expire(wheel[(int) (tick & mask)]);
+
+            long next = start + (tick + 1) * tickNanos;
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0)
+                LockSupport.parkNanos(this, wait);
+            tick++;
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - start) / tickNanos;
+    }
+
+    private void add(Timeout timeout) {
+        long deadlineTick = Math.max(tick, (timeout.deadline - start + tickNanos - 1) / tickNanos);
+        timeout.rounds = (deadlineTick - tick) / wheel.length;
+        wheel[(int) (deadlineTick & mask)].add(timeout);
+        pending++;
+    }
+
+    private void expire(List<Timeout> bucket) {
+        if (bucket.isEmpty())
+            return;
+        List<Timeout> due = null;
+        for (int i = bucket.size() - 1; i >= 0; i--) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.rounds-- > 0)
+                continue;
+            bucket.set(i, bucket.get(bucket.size() - 1));
+            bucket.remove(bucket.size() - 1);
+            pending--;
+            if (due == null)
+                due = new ArrayList<>();
+            due.add(timeout);
+        }
+        if (due != null)
+            for (Timeout timeout : due) {
+                try {
+                    timeout.task.run();
+                } catch (Throwable t) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), t);
+                }
+            }
+    }
+
+    static final class Timeout {
+        final Runnable task;
+        final long deadline;
+        long rounds;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import net.openhft.chronicle.engine2.api.map.KeyValueStore;
 import java.util.AbstractCollection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Spliterator;
 
 /**
  * Created by peter on 22/05/15.
@@ -26,6 +27,14 @@ public class VanillaEntrySetView<K, V> extends AbstractCollection<Map.Entry<K, V
         return underlying.entrySetIterator();
     }
 
+    /**
+     * Splits by segment so parallelStream() reads the segments concurrently.
+     */
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return underlying.entrySetSpliterator();
+    }
+
     @Override
     public int size() {
         return (int) Math.min(Integer.MAX_VALUE, underlying.size());
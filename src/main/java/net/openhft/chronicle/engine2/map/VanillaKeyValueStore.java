@@ -8,52 +8,144 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Created by peter on 22/05/15.
  */
 public class VanillaKeyValueStore<K, V> implements KeyValueStore<K, V> {
-    private final ConcurrentMap<K, V> map = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, V>[] maps;
+    private final Class<K> keyType;
     private Asset asset;
 
     public VanillaKeyValueStore(FactoryContext context) {
+        this(context, 1);
+    }
+
+    /**
+     * @param segments the number of independent maps the keys are spread over. Bulk operations
+     *                 such as clear and bootstrap run over the segments in parallel.
+     */
+    public VanillaKeyValueStore(FactoryContext context, int segments) {
+        if (segments < 1) throw new IllegalArgumentException("segments: " + segments);
         asset = context.parent();
+        keyType = context.type();
+        maps = new ConcurrentMap[segments];
+        for (int i = 0; i < segments; i++)
+            maps[i] = new ConcurrentHashMap<>();
+    }
+
+    private ConcurrentMap<K, V> mapFor(K key) {
+        return maps[segmentFor(key)];
+    }
+
+    @Override
+    public Class<K> keyType() {
+        return keyType;
+    }
+
+    @Override
+    public int segments() {
+        return maps.length;
+    }
+
+    @Override
+    public int segmentFor(K key) {
+        return segmentFor(key, maps.length);
+    }
+
+    /**
+     * The segment of a key for stores segmented by the key's hashCode().
+     */
+    static int segmentFor(Object key, int segments) {
+        if (segments == 1)
+            return 0;
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % segments;
     }
 
     @Override
     public V getAndPut(K key, V value) {
-        return map.put(key, value);
+        return mapFor(key).put(key, value);
     }
 
     @Override
     public V getAndRemove(K key) {
-        return map.remove(key);
+        return mapFor(key).remove(key);
     }
 
     @Override
     public V getUsing(K key, V value) {
-        return map.get(key);
+        return mapFor(key).get(key);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return mapFor(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return mapFor(key).replace(key, value);
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        return mapFor(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        return mapFor(key).remove(key, value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return mapFor(key).compute(key, remapping);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        return mapFor(key).computeIfAbsent(key, function);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return mapFor(key).merge(key, value, function);
     }
 
     @Override
     public long size() {
-        return map.size();
+        if (maps.length == 1)
+            return maps[0].size();
+        return segmentStream().mapToLong(i -> maps[i].size()).sum();
+    }
+
+    @Override
+    public long segmentSize(int segment) {
+        return maps[segment].size();
     }
 
     @Override
     public void keysFor(int segment, Consumer<K> kConsumer) {
-        map.keySet().forEach(kConsumer);
+        maps[segment].keySet().forEach(kConsumer);
     }
 
     @Override
     public void entriesFor(int segment, Consumer<Entry<K, V>> kvConsumer) {
-        map.entrySet().forEach(e -> kvConsumer.accept(new VanillaEntry<>(e.getKey(), e.getValue())));
+        MutableEntry<K, V> entry = new MutableEntry<>();
+        maps[segment].forEach((k, v) -> kvConsumer.accept(entry.set(k, v)));
     }
 
     @Override
     public Iterator<Map.Entry<K, V>> entrySetIterator() {
-        return map.entrySet().iterator();
+        if (maps.length == 1)
+            return maps[0].entrySet().iterator();
+        return Stream.of(maps).flatMap(m -> m.entrySet().stream()).iterator();
     }
 
     @Override
@@ -64,8 +156,7 @@ public class VanillaKeyValueStore<K, V> implements KeyValueStore<K, V> {
 
     @Override
     public void clear() {
-        for (int i = 0, segs = segments(); i < segs; i++)
-            keysFor(i, k -> map.remove(k));
+        forEachSegment(i -> maps[i].clear());
     }
 
     @Override
@@ -2,12 +2,17 @@ package net.openhft.chronicle.engine2.map;
 
 import net.openhft.chronicle.engine2.api.Asset;
 import net.openhft.chronicle.engine2.api.FactoryContext;
+import net.openhft.chronicle.engine2.api.QueryOptions;
 import net.openhft.chronicle.engine2.api.map.KeyValueStore;
 import net.openhft.chronicle.engine2.api.map.MapView;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.AbstractMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Created by peter on 22/05/15.
@@ -21,9 +26,9 @@ public class VanillaMapView<K, V> extends AbstractMap<K, V> implements MapView<K
     public VanillaMapView(FactoryContext<KeyValueStore<K, V>> context) {
         this.asset = context.parent();
         this.kvStore = context.item();
-        String queryString = context.queryString().toLowerCase();
-        putReturnsNull = queryString.contains("putreturnsnull=true");
-        removeReturnsNull = queryString.contains("removereturnsnull=true");
+        QueryOptions options = context.queryOptions();
+        putReturnsNull = options.putReturnsNull();
+        removeReturnsNull = options.removeReturnsNull();
         kvStore = context.item();
     }
 
@@ -47,6 +52,26 @@ public class VanillaMapView<K, V> extends AbstractMap<K, V> implements MapView<K
         return kvStore;
     }
 
+    @Override
+    public V get(Object key) {
+        return kvStore.get((K) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return kvStore.containsKey((K) key);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, kvStore.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return kvStore.size() == 0;
+    }
+
     @Override
     public V put(K key, V value) {
         if (putReturnsNull) {
@@ -58,6 +83,11 @@ public class VanillaMapView<K, V> extends AbstractMap<K, V> implements MapView<K
         }
     }
 
+    @Override
+    public void putAll(@NotNull Map<? extends K, ? extends V> m) {
+        m.forEach(kvStore::put);
+    }
+
     @Override
     public V remove(Object key) {
         if (removeReturnsNull) {
@@ -76,6 +106,15 @@ public class VanillaMapView<K, V> extends AbstractMap<K, V> implements MapView<K
         return asset.acquireView(Set.class, Entry.class, "");
     }
 
+    /**
+     * Visits the segments in turn, without copying the entries.
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0, segments = kvStore.segments(); i < segments; i++)
+            kvStore.entriesFor(i, e -> action.accept(e.key(), e.value()));
+    }
+
     @Override
     public void clear() {
         kvStore.clear();
@@ -83,21 +122,41 @@ public class VanillaMapView<K, V> extends AbstractMap<K, V> implements MapView<K
 
     @Override
     public V putIfAbsent(@NotNull K key, V value) {
-        throw new UnsupportedOperationException("todo");
+        return kvStore.putIfAbsent(key, value);
     }
 
     @Override
     public boolean remove(@NotNull Object key, Object value) {
-        throw new UnsupportedOperationException("todo");
+        return value != null && kvStore.removeIfEqual((K) key, (V) value);
     }
 
     @Override
     public boolean replace(@NotNull K key, @NotNull V oldValue, @NotNull V newValue) {
-        throw new UnsupportedOperationException("todo");
+        return kvStore.replaceIfEqual(key, oldValue, newValue);
     }
 
     @Override
     public V replace(@NotNull K key, @NotNull V value) {
-        throw new UnsupportedOperationException("todo");
+        return kvStore.replace(key, value);
+    }
+
+    @Override
+    public V compute(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return kvStore.compute(key, remapping);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, @NotNull Function<? super K, ? extends V> function) {
+        return kvStore.computeIfAbsent(key, function);
+    }
+
+    @Override
+    public V computeIfPresent(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return kvStore.compute(key, (k, v) -> v == null ? null : remapping.apply(k, v));
+    }
+
+    @Override
+    public V merge(K key, @NotNull V value, @NotNull BiFunction<? super V, ? super V, ? extends V> function) {
+        return kvStore.merge(key, value, function);
     }
 }
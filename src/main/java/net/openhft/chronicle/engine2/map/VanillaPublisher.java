@@ -0,0 +1,175 @@
+package net.openhft.chronicle.engine2.map;
+
+import net.openhft.chronicle.engine2.api.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A stream of events which are passed to the subscribers and not kept.  Publishers add to a
+ * lock-free ring buffer and whichever publisher finds no one draining it delivers the events, in
+ * the order they were added, so no thread is needed.  A drain delivers at most the events queued
+ * when it started, so under load the publishers take turns rather than one delivering for all.
+ * With <code>async=true</code> a subscriber is called on another thread.
+ */
+public class VanillaPublisher<E> implements Publisher<E>, Subscription, View, Assetted<Void> {
+    static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final String name;
+    private final RingBuffer<E> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // the thread draining, so a subscriber which publishes doesn't wait for itself.
+    private volatile Thread drainer;
+    // the last event published by a subscriber during the drain, only used by the drainer.
+    private long owed = -1;
+    private final List<Consumer<E>> subscribers = new CopyOnWriteArrayList<>();
+    // the subscribers and what was added for each.
+    private final Map<Object, Consumer<E>> registered = new ConcurrentHashMap<>();
+    private Asset asset;
+
+    public VanillaPublisher(FactoryContext context) {
+        this.asset = context.parent();
+        this.name = context.name();
+        this.buffer = new RingBuffer<>((int) context.queryOptions().getLong("bufferSize", DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Returns once the event has been taken for delivery, draining whenever no one else is.
+     */
+    @Override
+    public void publish(E event) {
+        if (subscribers.isEmpty())
+            return;
+        boolean fromSubscriber = drainer == Thread.currentThread();
+        long pos;
+        while ((pos = buffer.tryAdd(event)) < 0) {
+            if (fromSubscriber)
+                // the buffer is full and this thread is the one draining it, make room here.
+                deliverNext();
+            else if (!drain())
+                LockSupport.parkNanos(1_000);
+        }
+        if (fromSubscriber) {
+            // published by a subscriber, the drain it is called from delivers it.
+            owed = Math.max(owed, pos);
+            return;
+        }
+        while (buffer.head() <= pos) {
+            if (!drain())
+                Thread.yield();
+        }
+    }
+
+    /**
+     * Delivers the events queued when it starts, and any published by the subscribers meanwhile.
+     *
+     * @return false if another thread is draining.
+     */
+    private boolean drain() {
+        if (!draining.compareAndSet(false, true))
+            return false;
+        drainer = Thread.currentThread();
+        try {
+            do {
+                for (int n = buffer.size(); n > 0; n--)
+                    if (!deliverNext())
+                        break;
+            } while (buffer.head() <= owed);
+        } finally {
+            drainer = null;
+            draining.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers the oldest event, only called by the drainer.
+     *
+     * @return false if there wasn't one.
+     */
+    private boolean deliverNext() {
+        E e = buffer.poll();
+        if (e == null)
+            return false;
+        for (Consumer<E> subscriber : subscribers)
+            deliver(subscriber, e);
+        return true;
+    }
+
+    private static <E> void deliver(Consumer<E> subscriber, E e) {
+        try {
+            subscriber.accept(e);
+        } catch (Exception ex) {
+            // a failing subscriber shouldn't stop delivery to the others.
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+        }
+    }
+
+    @Override
+    public <T> void registerSubscriber(Class<T> eClass, Subscriber<T> subscriber, String query) {
+        add(subscriber, e -> subscriber.on((T) e), query);
+    }
+
+    @Override
+    public <T> void registerSubscriber(Class<T> eClass, TopicSubscriber<T> subscriber, String query) {
+        add(subscriber, e -> subscriber.on(name, (T) e), query);
+    }
+
+    private void add(Object subscriber, Consumer<E> consumer, String query) {
+        QueryOptions options = QueryOptions.of(query);
+        if (options.getBoolean("async", false))
+            consumer = new AsyncDispatcher<>(consumer, e -> e, options);
+        registered.put(subscriber, consumer);
+        subscribers.add(consumer);
+    }
+
+    @Override
+    public <T> void unregisterSubscriber(Class<T> eClass, Subscriber<T> subscriber, String query) {
+        remove(subscriber);
+    }
+
+    @Override
+    public <T> void unregisterSubscriber(Class<T> eClass, TopicSubscriber<T> subscriber, String query) {
+        remove(subscriber);
+    }
+
+    private void remove(Object subscriber) {
+        Consumer<E> consumer = registered.remove(subscriber);
+        if (consumer == null)
+            return;
+        subscribers.remove(consumer);
+        if (consumer instanceof AsyncDispatcher)
+            ((AsyncDispatcher) consumer).close();
+    }
+
+    @Override
+    public void asset(Asset asset) {
+        this.asset = asset;
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Override
+    public void underlying(Void underlying) {
+        throw new UnsupportedOperationException("A publisher has no underlying store");
+    }
+
+    @Override
+    public Void underlying() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "VanillaPublisher{" + name + ", subscribers=" + subscribers.size() + '}';
+    }
+}
@@ -6,10 +6,15 @@ import net.openhft.chronicle.engine2.api.TopicSubscriber;
 import net.openhft.chronicle.engine2.api.map.KeyValueStore;
 import net.openhft.chronicle.engine2.api.map.SubscriptionKeyValueStore;
 
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * Created by peter on 22/05/15.
  */
 public class VanillaSubscriptionKeyValueStore<K, V> extends AbstractKeyValueStore<K, V> implements SubscriptionKeyValueStore<K, V> {
+    // each change is made and notified holding the key's change lock, see Bootstrap.
     final SubscriptionKVSCollection<K, V> subscriptions = new SubscriptionKVSCollection<>(this);
 
     public VanillaSubscriptionKeyValueStore(FactoryContext<KeyValueStore<K, V>> context) {
@@ -18,17 +23,137 @@ public class VanillaSubscriptionKeyValueStore<K, V> extends AbstractKeyValueStor
 
     @Override
     public V getAndPut(K key, V value) {
-        V oldValue = kvStore.getAndPut(key, value);
-        subscriptions.notifyUpdate(key, oldValue, value);
-        return oldValue;
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            V oldValue = kvStore.getAndPut(key, value);
+            subscriptions.notifyUpdate(key, oldValue, value);
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public V getAndRemove(K key) {
-        V oldValue = kvStore.getAndRemove(key);
-        if (oldValue != null)
-            subscriptions.notifyRemoval(key, oldValue);
-        return oldValue;
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            V oldValue = kvStore.getAndRemove(key);
+            if (oldValue != null)
+                subscriptions.notifyRemoval(key, oldValue);
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            V oldValue = kvStore.putIfAbsent(key, value);
+            if (oldValue == null)
+                subscriptions.notifyUpdate(key, null, value);
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            V oldValue = kvStore.replace(key, value);
+            if (oldValue != null)
+                subscriptions.notifyUpdate(key, oldValue, value);
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceIfEqual(K key, V oldValue, V newValue) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            if (!kvStore.replaceIfEqual(key, oldValue, newValue))
+                return false;
+            subscriptions.notifyUpdate(key, oldValue, newValue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeIfEqual(K key, V value) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            if (!kvStore.removeIfEqual(key, value))
+                return false;
+            subscriptions.notifyRemoval(key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            // the last call is the one which took effect.
+            Object[] oldValue = {null};
+            V newValue = kvStore.compute(key, (k, v) -> {
+                oldValue[0] = v;
+                return remapping.apply(k, v);
+            });
+            notifyChange(key, (V) oldValue[0], newValue);
+            return newValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        Lock lock = subscriptions.changeLock(key);
+        lock.lock();
+        try {
+            Object[] computed = {null};
+            V value = kvStore.computeIfAbsent(key, k -> {
+                V v = function.apply(k);
+                computed[0] = v;
+                return v;
+            });
+            if (value != null && value == computed[0])
+                subscriptions.notifyUpdate(key, null, value);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        return compute(key, (k, oldValue) -> oldValue == null ? value : function.apply(oldValue, value));
+    }
+
+    private void notifyChange(K key, V oldValue, V newValue) {
+        if (newValue == null) {
+            if (oldValue != null)
+                subscriptions.notifyRemoval(key, oldValue);
+
+        } else if (newValue != oldValue) {
+            subscriptions.notifyUpdate(key, oldValue, newValue);
+        }
     }
 
     @Override
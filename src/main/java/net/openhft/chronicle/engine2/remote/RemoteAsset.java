@@ -0,0 +1,170 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.api.*;
+import net.openhft.chronicle.engine2.api.map.EntrySetView;
+import net.openhft.chronicle.engine2.api.map.MapView;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * An asset of a remote Session.  The views are created locally and their operations are sent to
+ * the server, subscribers are called from the session's polling thread.  Resources, interceptors
+ * and factories run on the server and are registered with its Session, not through this asset.
+ */
+public class RemoteAsset implements Asset {
+    private final RemoteSession session;
+    private final String name;
+    // the subscribers and the subscription made for each.
+    private final ConcurrentMap<Object, RemoteSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    RemoteAsset(RemoteSession session, String name) {
+        this.session = session;
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String fullName() {
+        return name;
+    }
+
+    @Nullable
+    @Override
+    public Asset parent() {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Stream<Asset> children() {
+        return session.childrenOf(name);
+    }
+
+    @Override
+    public Asset add(String name, Assetted resource) {
+        throw new UnsupportedOperationException("Can't add " + name + " to the remote asset " + this.name
+                + ", add it to the Session of the server");
+    }
+
+    @NotNull
+    @Override
+    public <A> Asset acquireChild(String name, Class<A> assetClass, Class class1, Class class2) throws AssetNotFoundException {
+        return session.acquireAsset(this.name + "/" + name, assetClass, class1, class2);
+    }
+
+    @Nullable
+    @Override
+    public Asset getChild(String name) {
+        return session.getAsset(this.name + "/" + name);
+    }
+
+    @Override
+    public void removeChild(String name) {
+        session.removeAsset(this.name + "/" + name);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    @Override
+    public <V> V acquireView(Class<V> vClass, String queryString) {
+        return acquireView(vClass, null, null, queryString);
+    }
+
+    @Override
+    public <V> V acquireView(Class<V> vClass, Class class1, String queryString) {
+        return acquireView(vClass, class1, null, queryString);
+    }
+
+    @Override
+    public <V> V acquireView(Class<V> vClass, Class class1, Class class2, String queryString) {
+        if (vClass == Map.class || vClass == ConcurrentMap.class || vClass == MapView.class)
+            return (V) new RemoteMapView(session.hub(), this, class1, class2, queryString);
+        if (vClass == Set.class || vClass == EntrySetView.class)
+            return (V) new RemoteEntrySetView(session.hub(), this, class1, class2, queryString);
+        if (vClass == Publisher.class)
+            return (V) new RemotePublisher(session.hub(), name, class1, queryString);
+        throw new UnsupportedOperationException("The view " + vClass.getName() + " of " + name
+                + " is not available remotely, only Map, ConcurrentMap, MapView, Set, EntrySetView and Publisher");
+    }
+
+    @Override
+    public <I extends Interceptor> I acquireInterceptor(Class<I> iClass) throws AssetNotFoundException {
+        throw new UnsupportedOperationException("The interceptors of " + name + " are held by the server, "
+                + iClass.getName() + " can't be acquired remotely");
+    }
+
+    @Override
+    public <I extends Interceptor> void registerInterceptor(Class<I> iClass, I interceptor) {
+        throw new UnsupportedOperationException("Can't register a " + iClass.getName() + " on the remote asset "
+                + name + ", register it on the Session of the server");
+    }
+
+    @Override
+    public <I> Factory<I> acquireFactory(Class<I> iClass) throws AssetNotFoundException {
+        throw new UnsupportedOperationException("The factories of " + name + " are held by the server, "
+                + iClass.getName() + " can't be acquired remotely");
+    }
+
+    @Override
+    public <I> void registerFactory(Class<I> iClass, Factory<I> factory) {
+        throw new UnsupportedOperationException("Can't register a factory of " + iClass.getName()
+                + " on the remote asset " + name + ", register it on the Session of the server");
+    }
+
+    @Override
+    public <E> void registerSubscriber(Class<E> eClass, Subscriber<E> subscriber, String query) {
+        subscribe(subscriber, eClass, query, false, (t, m) -> subscriber.on((E) m));
+    }
+
+    @Override
+    public <E> void registerSubscriber(Class<E> eClass, TopicSubscriber<E> subscriber, String query) {
+        subscribe(subscriber, eClass, query, true, (t, m) -> subscriber.on(t, (E) m));
+    }
+
+    private void subscribe(Object subscriber, Class eClass, String query, boolean withTopics,
+                           BiConsumer<String, Object> consumer) {
+        RemoteSubscription subscription = session.subscribe(name, eClass, query, withTopics, consumer);
+        RemoteSubscription prev = subscriptions.put(subscriber, subscription);
+        if (prev != null)
+            prev.close();
+    }
+
+    @Override
+    public <E> void unregisterSubscriber(Class<E> eClass, Subscriber<E> subscriber, String query) {
+        unsubscribe(subscriber);
+    }
+
+    @Override
+    public <E> void unregisterSubscriber(Class<E> eClass, TopicSubscriber<E> subscriber, String query) {
+        unsubscribe(subscriber);
+    }
+
+    private void unsubscribe(Object subscriber) {
+        RemoteSubscription subscription = subscriptions.remove(subscriber);
+        if (subscription != null)
+            subscription.close();
+    }
+
+    void close() {
+        subscriptions.keySet().forEach(this::unsubscribe);
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteAsset{" + name + '}';
+    }
+}
@@ -0,0 +1,62 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.server.SessionWireHandler.EventId;
+import net.openhft.chronicle.map.MapStatelessClient;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.ValueOut;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.wire.CoreFields.reply;
+
+/**
+ * Sends the events of one view of a remote asset, the csp is
+ * <code>/name?view=view&keyType=...&valueType=...</code> followed by the query string.
+ */
+class RemoteAssetClient extends MapStatelessClient<EventId> {
+
+    RemoteAssetClient(@NotNull ClientWiredStatelessTcpConnectionHub hub,
+                      @NotNull String name,
+                      @NotNull String view,
+                      @Nullable Class kClass,
+                      @Nullable Class vClass,
+                      @Nullable String queryString) {
+        super(name, hub, type(view, kClass, vClass, queryString), 0);
+    }
+
+    static String type(String view, Class kClass, Class vClass, String queryString) {
+        StringBuilder sb = new StringBuilder(view);
+        if (kClass != null)
+            sb.append("&keyType=").append(kClass.getName());
+        if (vClass != null)
+            sb.append("&valueType=").append(vClass.getName());
+        if (queryString != null && !queryString.isEmpty())
+            sb.append('&').append(queryString);
+        return sb.toString();
+    }
+
+    <R> R call(EventId eventId, Consumer<ValueOut> args, Function<ValueIn, R> reader) {
+        return proxyReturnWireConsumerInOut(eventId, reply, args, reader);
+    }
+
+    long callLong(EventId eventId) {
+        return proxyReturnLong(eventId);
+    }
+
+    void send(EventId eventId) {
+        proxyReturnVoid(eventId);
+    }
+
+    void send(EventId eventId, Consumer<ValueOut> args) {
+        proxyReturnVoid(eventId, args);
+    }
+
+    @Override
+    public void close() {
+        // the connection is owned by the session.
+    }
+}
@@ -0,0 +1,79 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.api.Asset;
+import net.openhft.chronicle.engine2.api.map.EntrySetView;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.EventId.*;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.Params.key;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.Params.value;
+import static net.openhft.chronicle.wire.WireOut.EMPTY;
+
+/**
+ * The entries of a map held by a remote Session.  Iterating takes a copy of the entries in one
+ * round trip.
+ */
+public class RemoteEntrySetView<K, V> extends AbstractSet<Map.Entry<K, V>> implements EntrySetView<K, V> {
+    private final RemoteAssetClient client;
+    private final Class<K> kClass;
+    private final Class<V> vClass;
+    private Asset asset;
+
+    public RemoteEntrySetView(@NotNull ClientWiredStatelessTcpConnectionHub hub, Asset asset,
+                              @NotNull Class<K> kClass, @NotNull Class<V> vClass, String queryString) {
+        this.asset = asset;
+        this.kClass = kClass;
+        this.vClass = vClass;
+        this.client = new RemoteAssetClient(hub, asset.name(), "entrySet", kClass, vClass, queryString);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        List<Map.Entry<K, V>> entryList = client.call(entries, v -> v.marshallable(EMPTY), in -> {
+            List<Map.Entry<K, V>> list = new ArrayList<>();
+            in.sequence(s -> {
+                while (s.hasNextSequenceItem())
+                    s.marshallable(w -> list.add(new AbstractMap.SimpleImmutableEntry<>(
+                            w.read(key).object(kClass), w.read(value).object(vClass))));
+            });
+            return list;
+        });
+        return Collections.unmodifiableList(entryList).iterator();
+    }
+
+    @Override
+    public int size() {
+        return (int) client.callLong(size);
+    }
+
+    @Override
+    public void clear() {
+        client.send(clear);
+    }
+
+    @Override
+    public void asset(Asset asset) {
+        if (this.asset != null) throw new IllegalStateException();
+        this.asset = asset;
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Override
+    public void underlying(KeyValueStore<K, V> underlying) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KeyValueStore<K, V> underlying() {
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.api.Asset;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.api.map.MapView;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.ValueOut;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.EventId.*;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.Params.*;
+
+/**
+ * A map held by a remote Session, each call is a round trip.
+ */
+public class RemoteMapView<K, V> extends AbstractMap<K, V> implements MapView<K, V> {
+    private final RemoteAssetClient client;
+    private final Class<K> kClass;
+    private final Class<V> vClass;
+    private final RemoteEntrySetView<K, V> entrySet;
+    private Asset asset;
+
+    public RemoteMapView(@NotNull ClientWiredStatelessTcpConnectionHub hub, Asset asset,
+                         @NotNull Class<K> kClass, @NotNull Class<V> vClass, String queryString) {
+        this.asset = asset;
+        this.kClass = kClass;
+        this.vClass = vClass;
+        this.client = new RemoteAssetClient(hub, asset.name(), "map", kClass, vClass, queryString);
+        this.entrySet = new RemoteEntrySetView<>(hub, asset, kClass, vClass, queryString);
+    }
+
+    private static Consumer<ValueOut> keyArg(Object k) {
+        return v -> v.marshallable(w -> w.write(key).object(k));
+    }
+
+    private static Consumer<ValueOut> keyValueArgs(Object k, Object val) {
+        return v -> v.marshallable(w -> w.write(key).object(k).write(value).object(val));
+    }
+
+    private V found(ValueIn in) {
+        Object[] v = {null};
+        in.marshallable(w -> {
+            if (w.read(found).bool())
+                v[0] = w.read(value).object(vClass);
+        });
+        return (V) v[0];
+    }
+
+    @Override
+    public V get(Object k) {
+        return client.call(get, keyArg(k), this::found);
+    }
+
+    @Override
+    public V put(K k, V v) {
+        return client.call(getAndPut, keyValueArgs(k, v), this::found);
+    }
+
+    @Override
+    public V remove(Object k) {
+        return client.call(getAndRemove, keyArg(k), this::found);
+    }
+
+    @Override
+    public boolean containsKey(Object k) {
+        return client.call(containsKey, keyArg(k), ValueIn::bool);
+    }
+
+    @Override
+    public V putIfAbsent(@NotNull K k, V v) {
+        return client.call(putIfAbsent, keyValueArgs(k, v), this::found);
+    }
+
+    @Override
+    public boolean remove(@NotNull Object k, Object v) {
+        return client.call(removeIfEqual, keyValueArgs(k, v), ValueIn::bool);
+    }
+
+    @Override
+    public boolean replace(@NotNull K k, @NotNull V expected, @NotNull V update) {
+        return client.call(replaceIfEqual, v -> v.marshallable(w -> w.write(key).object(k)
+                .write(oldValue).object(expected)
+                .write(newValue).object(update)), ValueIn::bool);
+    }
+
+    @Override
+    public V replace(@NotNull K k, @NotNull V v) {
+        return client.call(replace, keyValueArgs(k, v), this::found);
+    }
+
+    @Override
+    public int size() {
+        return (int) client.callLong(size);
+    }
+
+    @Override
+    public void clear() {
+        client.send(clear);
+    }
+
+    @NotNull
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    @Override
+    public void asset(Asset asset) {
+        if (this.asset != null) throw new IllegalStateException();
+        this.asset = asset;
+    }
+
+    @Override
+    public Asset asset() {
+        return asset;
+    }
+
+    @Override
+    public void underlying(KeyValueStore<K, V> underlying) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KeyValueStore<K, V> underlying() {
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.api.Publisher;
+import net.openhft.chronicle.engine2.api.View;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import org.jetbrains.annotations.NotNull;
+
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.EventId.publish;
+
+/**
+ * Publishes to a Publisher held by a remote Session.
+ */
+public class RemotePublisher<E> implements Publisher<E>, View {
+    private final RemoteAssetClient client;
+
+    public RemotePublisher(@NotNull ClientWiredStatelessTcpConnectionHub hub, @NotNull String name,
+                           @NotNull Class<E> eClass, String queryString) {
+        this.client = new RemoteAssetClient(hub, name, "publisher", null, eClass, queryString);
+    }
+
+    @Override
+    public void publish(E event) {
+        client.send(publish, v -> v.object(event));
+    }
+}
@@ -0,0 +1,116 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.MemoryUnit;
+import net.openhft.chronicle.engine2.api.*;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A Session for the assets served by a {@link net.openhft.chronicle.engine2.server.SessionServerEndpoint}.
+ * The server holds the events for a subscriber until they are polled, every
+ * <code>POLL_INTERVAL_MS</code>, by a thread of this session.
+ */
+public class RemoteSession implements Session {
+    static final long POLL_INTERVAL_MS = 10;
+
+    private final ClientWiredStatelessTcpConnectionHub hub;
+    private final ConcurrentMap<String, RemoteAsset> assets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "remote-session-poller");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RemoteSession(@NotNull String hostname,
+                         int port,
+                         byte identifier,
+                         @NotNull Function<Bytes, Wire> byteToWire) {
+        final InetSocketAddress inetSocketAddress = new InetSocketAddress(hostname, port);
+        int tcpBufferSize = (int) MemoryUnit.MEGABYTES.toBytes(2) + 1024;
+        long timeoutMs = TimeUnit.SECONDS.toMillis(20);
+
+        hub = new ClientWiredStatelessTcpConnectionHub(identifier,
+                false,
+                inetSocketAddress,
+                tcpBufferSize,
+                timeoutMs, byteToWire);
+    }
+
+    ClientWiredStatelessTcpConnectionHub hub() {
+        return hub;
+    }
+
+    private static String normalise(String name) {
+        int start = 0;
+        while (start < name.length() && name.charAt(start) == '/')
+            start++;
+        return name.substring(start);
+    }
+
+    @NotNull
+    @Override
+    public <A> Asset acquireAsset(String name, Class<A> assetClass, Class class1, Class class2) throws AssetNotFoundException {
+        return assets.computeIfAbsent(normalise(name), n -> new RemoteAsset(this, n));
+    }
+
+    @Nullable
+    @Override
+    public Asset getAsset(String name) {
+        return assets.get(normalise(name));
+    }
+
+    @Override
+    public Asset add(String name, Assetted resource) {
+        throw new UnsupportedOperationException("Can't add " + name + " to a remote session, add it to the Session of the server");
+    }
+
+    @Override
+    public <I extends Interceptor> void registerInterceptor(Class<I> iClass, I interceptor) {
+        throw new UnsupportedOperationException("Can't register a " + iClass.getName()
+                + " on a remote session, register it on the Session of the server");
+    }
+
+    /**
+     * The assets acquired from this session directly under the parent.
+     */
+    Stream<Asset> childrenOf(String parent) {
+        String prefix = parent + "/";
+        return assets.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix) && e.getKey().indexOf('/', prefix.length()) < 0)
+                .<Asset>map(Map.Entry::getValue);
+    }
+
+    /**
+     * Forgets an asset and closes its subscriptions, the asset on the server is unchanged.
+     */
+    void removeAsset(String name) {
+        RemoteAsset asset = assets.remove(normalise(name));
+        if (asset != null)
+            asset.close();
+    }
+
+    RemoteSubscription subscribe(String name, Class eClass, String query, boolean withTopics,
+                                 BiConsumer<String, Object> consumer) {
+        RemoteSubscription subscription = new RemoteSubscription(hub, name, eClass, query, withTopics, consumer);
+        subscription.future(poller.scheduleWithFixedDelay(subscription,
+                POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS));
+        return subscription;
+    }
+
+    @Override
+    public void close() {
+        assets.values().forEach(RemoteAsset::close);
+        poller.shutdownNow();
+        hub.close();
+    }
+}
@@ -0,0 +1,92 @@
+package net.openhft.chronicle.engine2.remote;
+
+import net.openhft.chronicle.engine2.server.SessionWireHandler;
+import net.openhft.chronicle.network.connection.ClientWiredStatelessTcpConnectionHub;
+import net.openhft.chronicle.wire.ValueIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
+
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.EventId.*;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.Params.*;
+
+/**
+ * A subscription held by the server, polled for the events it has collected.
+ */
+final class RemoteSubscription implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteSubscription.class);
+
+    private final RemoteAssetClient client;
+    private final Class eClass;
+    private final BiConsumer<String, Object> consumer;
+    private final long subscriptionId;
+    private volatile ScheduledFuture<?> future;
+    private volatile long totalDropped;
+
+    RemoteSubscription(ClientWiredStatelessTcpConnectionHub hub, String name, Class eClass,
+                       String queryString, boolean withTopics, BiConsumer<String, Object> consumer) {
+        this.client = new RemoteAssetClient(hub, name, "subscription", null, eClass, null);
+        this.eClass = eClass;
+        this.consumer = consumer;
+        this.subscriptionId = client.call(subscribe, v -> v.marshallable(w -> w
+                .write(query).text(queryString == null ? "" : queryString)
+                .write(topics).bool(withTopics)), ValueIn::int64);
+    }
+
+    void future(ScheduledFuture<?> future) {
+        this.future = future;
+    }
+
+    @Override
+    public void run() {
+        try {
+            // keep going while the server has a full batch for us.
+            while (pollBatch() == SessionWireHandler.MAX_BATCH) ;
+        } catch (Exception e) {
+            // an exception would stop the polling.
+            LOG.warn("poll failed for subscription " + subscriptionId, e);
+        }
+    }
+
+    private int pollBatch() {
+        return client.call(poll, v -> v.marshallable(w -> w
+                .write(id).int64(subscriptionId)
+                .write(max).int32(SessionWireHandler.MAX_BATCH)), in -> {
+            int[] count = {0};
+            in.marshallable(r -> {
+                r.read(events).sequence(s -> {
+                    while (s.hasNextSequenceItem()) {
+                        s.marshallable(w -> {
+                            String t = w.read(topic).text();
+                            consumer.accept(t, w.read(message).object(eClass));
+                        });
+                        count[0]++;
+                    }
+                });
+                long droppedCount = r.read(dropped).int64();
+                if (droppedCount > 0) {
+                    totalDropped += droppedCount;
+                    LOG.warn("the server dropped " + droppedCount + " events for subscription " + subscriptionId
+                            + " as they weren't polled in time, " + totalDropped + " in total");
+                }
+            });
+            return count[0];
+        });
+    }
+
+    /**
+     * @return the number of events the server has dropped as its buffer was full.
+     */
+    long dropped() {
+        return totalDropped;
+    }
+
+    void close() {
+        ScheduledFuture<?> future = this.future;
+        if (future != null)
+            future.cancel(false);
+        client.send(unsubscribe, v -> v.int64(subscriptionId));
+    }
+}
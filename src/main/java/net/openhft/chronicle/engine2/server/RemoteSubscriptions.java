@@ -0,0 +1,132 @@
+package net.openhft.chronicle.engine2.server;
+
+import net.openhft.chronicle.engine2.api.QueryOptions;
+import net.openhft.chronicle.engine2.api.Session;
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * The subscriptions made by remote clients, shared by the connections of an endpoint.  Events
+ * are held until the client polls for them, up to <code>bufferSize</code> after which they are
+ * dropped and counted, the count is returned by the next poll.  Each connection only uses the ids
+ * it subscribed with, and unsubscribes them when it ends.  A subscription which hasn't been
+ * polled for a minute is assumed to belong to a client which has gone, and is removed by a timer.
+ */
+public class RemoteSubscriptions {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    static final long IDLE_TIMEOUT_MS = 60_000;
+
+    private final Session session;
+    private final AtomicLong nextId = new AtomicLong();
+    private final ConcurrentMap<Long, RemoteSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService expiry = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "remote-subscriptions-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RemoteSubscriptions(Session session) {
+        this(session, IDLE_TIMEOUT_MS);
+    }
+
+    RemoteSubscriptions(Session session, long idleTimeoutMs) {
+        this.session = session;
+        long period = Math.max(1, idleTimeoutMs / 4);
+        expiry.scheduleWithFixedDelay(() -> expireIdle(idleTimeoutMs), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param withTopics register a TopicSubscriber, otherwise a Subscriber of eClass
+     * @return the id the client polls with.
+     */
+    public long subscribe(String name, String query, Class eClass, boolean withTopics) {
+        QueryOptions options = QueryOptions.of(query);
+        RemoteSubscription subscription = new RemoteSubscription(name, eClass, withTopics,
+                (int) options.getLong("bufferSize", DEFAULT_BUFFER_SIZE));
+        String nameQuery = query == null || query.isEmpty() ? name : name + "?" + query;
+        if (withTopics)
+            session.register(nameQuery, eClass, subscription.topicSubscriber);
+        else
+            session.register(nameQuery, eClass, subscription.subscriber);
+        long id = nextId.incrementAndGet();
+        subscriptions.put(id, subscription);
+        return id;
+    }
+
+    /**
+     * Passes up to max of the events held, with a null topic for a Subscriber.
+     *
+     * @return the number of events dropped since the last poll.
+     */
+    public long poll(long id, int max, BiConsumer<String, Object> consumer) {
+        RemoteSubscription subscription = subscriptions.get(id);
+        if (subscription == null)
+            throw new IllegalStateException("No subscription " + id + ", it may have expired");
+        subscription.lastPolled = System.currentTimeMillis();
+        for (int i = 0; i < max; i++) {
+            Object[] event = subscription.events.poll();
+            if (event == null)
+                break;
+            consumer.accept((String) event[0], event[1]);
+        }
+        return subscription.dropped.sumThenReset();
+    }
+
+    public void unsubscribe(long id) {
+        RemoteSubscription subscription = subscriptions.remove(id);
+        if (subscription != null)
+            subscription.unregister(session);
+    }
+
+    int size() {
+        return subscriptions.size();
+    }
+
+    void expireIdle(long idleTimeoutMs) {
+        long expired = System.currentTimeMillis() - idleTimeoutMs;
+        subscriptions.forEach((id, subscription) -> {
+            if (subscription.lastPolled < expired && subscriptions.remove(id, subscription))
+                subscription.unregister(session);
+        });
+    }
+
+    public void close() {
+        expiry.shutdownNow();
+        subscriptions.keySet().forEach(this::unsubscribe);
+    }
+
+    static class RemoteSubscription {
+        final String name;
+        final Class eClass;
+        final boolean withTopics;
+        final BlockingQueue<Object[]> events;
+        final LongAdder dropped = new LongAdder();
+        final TopicSubscriber<Object> topicSubscriber = (topic, message) -> add(topic, message);
+        final Subscriber<Object> subscriber = message -> add(null, message);
+        volatile long lastPolled = System.currentTimeMillis();
+
+        RemoteSubscription(String name, Class eClass, boolean withTopics, int bufferSize) {
+            this.name = name;
+            this.eClass = eClass;
+            this.withTopics = withTopics;
+            this.events = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void add(String topic, Object message) {
+            if (!events.offer(new Object[]{topic, message}))
+                dropped.increment();
+        }
+
+        void unregister(Session session) {
+            if (withTopics)
+                session.unregister(name, eClass, topicSubscriber);
+            else
+                session.unregister(name, eClass, subscriber);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package net.openhft.chronicle.engine2.server;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine2.api.Session;
+import net.openhft.chronicle.network.AcceptorEventHandler;
+import net.openhft.chronicle.network.event.EventGroup;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Serves the asset tree of a Session over TCP, see {@link SessionWireHandler}.  Clients can only
+ * name key, value and event types which have been allowed, String and the boxed primitives are
+ * allowed by default.
+ */
+public class SessionServerEndpoint implements Closeable {
+    private final Session session;
+    private final Function<Bytes, Wire> byteToWire;
+    private final RemoteSubscriptions subscriptions;
+    private final Map<String, Class> types = new ConcurrentHashMap<>();
+    private final EventGroup eg = new EventGroup();
+    private AcceptorEventHandler eah;
+
+    public SessionServerEndpoint(@NotNull Session session,
+                                 @NotNull Class<? extends Wire> wireClass) throws IOException {
+        this(0, session, wireClass);
+    }
+
+    public SessionServerEndpoint(int port,
+                                 @NotNull Session session,
+                                 @NotNull Class<? extends Wire> wireClass) throws IOException {
+        this.session = session;
+        this.byteToWire = Wire.bytesToWire(wireClass);
+        this.subscriptions = new RemoteSubscriptions(session);
+        allowTypes(String.class, Long.class, Integer.class, Short.class, Byte.class, Character.class,
+                Boolean.class, Double.class, Float.class);
+        start(port);
+    }
+
+    private void start(int port) throws IOException {
+        eg.start();
+        eah = new AcceptorEventHandler(port, () -> {
+            final Map<Long, String> cidToCsp = new HashMap<>();
+            return new SessionWireHandler(cidToCsp, session, subscriptions, types, byteToWire);
+        });
+        eg.addHandler(eah);
+    }
+
+    /**
+     * Allows clients to use these classes as key, value or event types.
+     */
+    public void allowTypes(Class... classes) {
+        for (Class c : classes)
+            types.put(c.getName(), c);
+    }
+
+    public int getPort() throws IOException {
+        return eah.getLocalPort();
+    }
+
+    public void stop() {
+        eg.stop();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        eg.close();
+        eah.close();
+        subscriptions.close();
+    }
+}
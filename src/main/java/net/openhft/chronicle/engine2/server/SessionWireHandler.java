@@ -0,0 +1,382 @@
+package net.openhft.chronicle.engine2.server;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.engine2.api.*;
+import net.openhft.chronicle.network.WireTcpHandler;
+import net.openhft.chronicle.wire.*;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.engine.utils.StringUtils.isEqual;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.EventId.*;
+import static net.openhft.chronicle.engine2.server.SessionWireHandler.Params.*;
+import static net.openhft.chronicle.wire.CoreFields.cid;
+import static net.openhft.chronicle.wire.CoreFields.csp;
+import static net.openhft.chronicle.wire.CoreFields.reply;
+import static net.openhft.chronicle.wire.WireOut.EMPTY;
+
+/**
+ * Serves the assets of a {@link Session}.  The csp names the asset and the view, e.g.
+ * <code>/group/map?view=map&keyType=java.lang.String&valueType=java.lang.String</code>, the rest
+ * of the query string is passed on as the view's query options.  The views are
+ * <ul>
+ * <li>map - the ConcurrentMap operations.</li>
+ * <li>entrySet - the size and entries of a map.</li>
+ * <li>publisher - publishing to a Publisher asset.</li>
+ * <li>subscription - subscribing to a map or publisher, the client polls for the events.</li>
+ * </ul>
+ */
+public class SessionWireHandler extends WireTcpHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionWireHandler.class);
+
+    /**
+     * the most events returned by one poll, regardless of what the client asks for.
+     */
+    public static final int MAX_BATCH = 1024;
+
+    public enum Params implements WireKey {
+        key,
+        value,
+        oldValue,
+        newValue,
+        found,
+        message,
+        topic,
+        query,
+        topics,
+        id,
+        max,
+        dropped,
+        events
+    }
+
+    public enum EventId implements ParameterizeWireKey {
+        get(key),
+        put(key, value),
+        getAndPut(key, value),
+        remove(key),
+        getAndRemove(key),
+        containsKey(key),
+        putIfAbsent(key, value),
+        replace(key, value),
+        replaceIfEqual(key, oldValue, newValue),
+        removeIfEqual(key, value),
+        size,
+        clear,
+        entries,
+        publish(message),
+        subscribe(query, topics),
+        poll(id, max),
+        unsubscribe(id);
+
+        private final WireKey[] params;
+
+        <P extends WireKey> EventId(P... params) {
+            this.params = params;
+        }
+
+        public <P extends WireKey> P[] params() {
+            return (P[]) this.params;
+        }
+    }
+
+    private final Map<Long, String> cidToCsp;
+    private final Session session;
+    private final RemoteSubscriptions subscriptions;
+    // the classes clients can name, by name.
+    private final Map<String, Class> types;
+    private final Function<Bytes, Wire> byteToWire;
+    private final StringBuilder cspText = new StringBuilder();
+    private final StringBuilder lastCsp = new StringBuilder();
+    private final StringBuilder eventName = new StringBuilder();
+    private final Consumer<WireIn> metaDataConsumer = this::readMetaData;
+    private long tid;
+
+    // the asset named by the last csp.
+    private String name;
+    private String view;
+    private Class kClass;
+    private Class vClass;
+    private ConcurrentMap map;
+    private Publisher publisher;
+    // why the last csp couldn't be routed, reported to each event sent to it.
+    private RuntimeException routeError;
+    // the subscriptions made over this connection, only they can be polled or cancelled through it.
+    private final Set<Long> subscriptionIds = new HashSet<>();
+
+    public SessionWireHandler(@NotNull Map<Long, String> cidToCsp,
+                              @NotNull Session session,
+                              @NotNull RemoteSubscriptions subscriptions,
+                              @NotNull Map<String, Class> types,
+                              @NotNull Function<Bytes, Wire> byteToWire) {
+        super(byteToWire);
+        this.cidToCsp = cidToCsp;
+        this.session = session;
+        this.subscriptions = subscriptions;
+        this.types = types;
+        this.byteToWire = byteToWire;
+    }
+
+    protected Wire createWriteFor(Bytes bytes) {
+        return byteToWire.apply(bytes);
+    }
+
+    private void readMetaData(WireIn metaDataWire) {
+        StringBuilder keyName = Wires.acquireStringBuilder();
+        ValueIn read = metaDataWire.readEventName(keyName);
+        if (csp.contentEquals(keyName)) {
+            read.text(cspText);
+
+        } else if (cid.contentEquals(keyName)) {
+            cspText.setLength(0);
+            cspText.append(cidToCsp.get(read.int64()));
+        }
+
+        ValueIn valueIn = metaDataWire.readEventName(eventName);
+        if (CoreFields.tid.contentEquals(eventName))
+            tid = valueIn.int64();
+
+        if (!isEqual(cspText, lastCsp)) {
+            // only remembered once routed, so a csp which failed is tried again.
+            lastCsp.setLength(0);
+            try {
+                route(cspText.toString());
+                routeError = null;
+                lastCsp.append(cspText);
+            } catch (RuntimeException e) {
+                view = null;
+                map = null;
+                publisher = null;
+                routeError = e;
+            }
+        }
+    }
+
+    /**
+     * Looks up the asset and view for a csp such as <code>/group/map?view=map</code>.
+     */
+    private void route(String cspText) {
+        int start = 0;
+        while (start < cspText.length() && cspText.charAt(start) == '/')
+            start++;
+        int query = cspText.indexOf('?', start);
+        name = query < 0 ? cspText.substring(start) : cspText.substring(start, query);
+        String queryString = query < 0 ? "" : cspText.substring(query + 1);
+        QueryOptions options = QueryOptions.of(queryString);
+        view = options.get("view");
+        kClass = classFor(options.get("keyType"));
+        vClass = classFor(options.get("valueType"));
+        String nameQuery = queryString.isEmpty() ? name : name + "?" + queryString;
+
+        map = null;
+        publisher = null;
+        if ("map".equals(view) || "entrySet".equals(view))
+            map = session.acquireMap(nameQuery, kClass, vClass);
+        else if ("publisher".equals(view))
+            publisher = session.acquirePublisher(nameQuery, vClass);
+        else if (!"subscription".equals(view))
+            throw new IllegalStateException("unsupported csp=" + cspText);
+    }
+
+    /**
+     * Only classes allowed by the endpoint are used, a client can't load any class it names.
+     */
+    private Class classFor(String className) {
+        if (className == null)
+            return Object.class;
+        Class type = types.get(className);
+        if (type == null)
+            throw new IllegalArgumentException("The type " + className + " is not allowed, see SessionServerEndpoint.allowTypes()");
+        return type;
+    }
+
+    @Override
+    protected void process(@NotNull final Wire in, @NotNull final Wire out) {
+        in.readDocument(metaDataConsumer, dataWire -> {
+            try {
+                ValueIn valueIn = in.readEventName(eventName);
+                out.writeDocument(true, wire -> out.writeEventName(CoreFields.tid).int64(tid));
+                writeData(out, () -> onEvent(valueIn, out));
+
+            } catch (Exception e) {
+                LOG.error("", e);
+            }
+        });
+    }
+
+    private void onEvent(ValueIn valueIn, Wire out) {
+        if (routeError != null)
+            throw routeError;
+        if (map != null) {
+            if ("entrySet".equals(view))
+                onEntrySetEvent(out);
+            else
+                onMapEvent(valueIn, out);
+            return;
+        }
+        if (publisher != null && publish.contentEquals(eventName)) {
+            publisher.publish(valueIn.object(vClass));
+            return;
+        }
+        if ("subscription".equals(view)) {
+            onSubscriptionEvent(valueIn, out);
+            return;
+        }
+        throw new IllegalStateException("unsupported event=" + eventName + " for " + view);
+    }
+
+    private void onMapEvent(ValueIn valueIn, Wire out) {
+        if (size.contentEquals(eventName)) {
+            out.writeEventName(reply).int64(map.size());
+            return;
+        }
+        if (clear.contentEquals(eventName)) {
+            map.clear();
+            return;
+        }
+        valueIn.marshallable(wire -> {
+            Object k = wire.read(key).object(kClass);
+            if (get.contentEquals(eventName)) {
+                writeFound(out, map.get(k));
+
+            } else if (put.contentEquals(eventName)) {
+                map.put(k, wire.read(value).object(vClass));
+
+            } else if (getAndPut.contentEquals(eventName)) {
+                writeFound(out, map.put(k, wire.read(value).object(vClass)));
+
+            } else if (remove.contentEquals(eventName)) {
+                map.remove(k);
+
+            } else if (getAndRemove.contentEquals(eventName)) {
+                writeFound(out, map.remove(k));
+
+            } else if (containsKey.contentEquals(eventName)) {
+                out.writeEventName(reply).bool(map.containsKey(k));
+
+            } else if (putIfAbsent.contentEquals(eventName)) {
+                writeFound(out, map.putIfAbsent(k, wire.read(value).object(vClass)));
+
+            } else if (replace.contentEquals(eventName)) {
+                writeFound(out, map.replace(k, wire.read(value).object(vClass)));
+
+            } else if (replaceIfEqual.contentEquals(eventName)) {
+                Object old = wire.read(oldValue).object(vClass);
+                out.writeEventName(reply).bool(map.replace(k, old, wire.read(newValue).object(vClass)));
+
+            } else if (removeIfEqual.contentEquals(eventName)) {
+                out.writeEventName(reply).bool(map.remove(k, wire.read(value).object(vClass)));
+
+            } else {
+                throw new IllegalStateException("unsupported event=" + eventName);
+            }
+        });
+    }
+
+    /**
+     * A value which may be null is sent as <code>{ found: true, value: ... }</code>.
+     */
+    private static void writeFound(Wire out, Object v) {
+        out.writeEventName(reply).marshallable(w -> {
+            w.write(found).bool(v != null);
+            if (v != null)
+                w.write(value).object(v);
+        });
+    }
+
+    private void onEntrySetEvent(Wire out) {
+        if (size.contentEquals(eventName)) {
+            out.writeEventName(reply).int64(map.size());
+            return;
+        }
+        if (clear.contentEquals(eventName)) {
+            map.clear();
+            return;
+        }
+        if (entries.contentEquals(eventName)) {
+            Set<Map.Entry> entrySet = map.entrySet();
+            out.writeEventName(reply).sequence(v -> {
+                for (Map.Entry e : entrySet)
+                    v.marshallable(w -> w.write(key).object(e.getKey()).write(value).object(e.getValue()));
+            });
+            return;
+        }
+        throw new IllegalStateException("unsupported event=" + eventName);
+    }
+
+    private void onSubscriptionEvent(ValueIn valueIn, Wire out) {
+        if (subscribe.contentEquals(eventName)) {
+            valueIn.marshallable(wire -> {
+                String queryString = wire.read(query).text();
+                boolean withTopics = wire.read(topics).bool();
+                long id = subscriptions.subscribe(name, queryString, vClass, withTopics);
+                subscriptionIds.add(id);
+                out.writeEventName(reply).int64(id);
+            });
+            return;
+        }
+        if (poll.contentEquals(eventName)) {
+            valueIn.marshallable(wire -> {
+                long id = ownSubscription(wire.read(Params.id).int64());
+                int maxEvents = Math.min(MAX_BATCH, wire.read(max).int32());
+                out.writeEventName(reply).marshallable(r -> {
+                    long[] droppedCount = {0};
+                    r.write(events).sequence(v ->
+                            droppedCount[0] = subscriptions.poll(id, maxEvents, (t, m) -> v.marshallable(w -> w
+                                    .write(topic).text(t == null ? "" : t)
+                                    .write(message).object(m))));
+                    r.write(dropped).int64(droppedCount[0]);
+                });
+            });
+            return;
+        }
+        if (unsubscribe.contentEquals(eventName)) {
+            long id = ownSubscription(valueIn.int64());
+            subscriptionIds.remove(id);
+            subscriptions.unsubscribe(id);
+            return;
+        }
+        throw new IllegalStateException("unsupported event=" + eventName);
+    }
+
+    private long ownSubscription(long id) {
+        if (!subscriptionIds.contains(id))
+            throw new IllegalStateException("No subscription " + id + " on this connection");
+        return id;
+    }
+
+    /**
+     * Called by the network layer when the connection ends, its subscriptions go with it.
+     */
+    public void onEndOfConnection(boolean heartbeatTimeOut) {
+        subscriptionIds.forEach(subscriptions::unsubscribe);
+        subscriptionIds.clear();
+    }
+
+    /**
+     * writes any exception and rolls back if no data was written
+     */
+    private static void writeData(Wire out, Runnable r) {
+        out.writeDocument(false, wire -> {
+            final long position = out.bytes().position();
+            try {
+                r.run();
+            } catch (Exception exception) {
+                out.bytes().position(position);
+                out.writeEventName(() -> "exception").throwable(exception);
+            }
+
+            // write 'reply : {} ' if no data was sent
+            if (position == out.bytes().position())
+                out.writeEventName(reply).marshallable(EMPTY);
+        });
+    }
+}
@@ -5,13 +5,16 @@ import net.openhft.chronicle.engine2.api.*;
 import net.openhft.chronicle.engine2.api.map.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static net.openhft.chronicle.engine.utils.StringUtils.split2;
@@ -21,18 +24,34 @@ import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
  * Created by peter on 22/05/15.
  */
 public class VanillaAsset implements Asset, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(VanillaAsset.class);
+
     private final Asset parent;
     private final String name;
     private final Assetted item;
-    private final Map<Class, View> viewMap = Collections.synchronizedMap(new LinkedHashMap<>());
-    private final Map<Class, Interceptor> interceptorMap = Collections.synchronizedMap(new LinkedHashMap<>());
-    private final Map<Class, Factory> factoryMap = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ConcurrentMap<Class, View> viewMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class, Interceptor> interceptorMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class, Factory> factoryMap = new ConcurrentHashMap<>();
+    // factories found, or not found, here or in a parent.  An entry is only valid for the
+    // generation of the tree's factories it was looked up in.
+    private final ConcurrentMap<Class, CachedFactory> factoryCache = new ConcurrentHashMap<>();
+    // shared by the whole tree, incremented whenever a factory is registered anywhere in it.
+    private final AtomicLong factoryGeneration;
+    // shared by the whole tree, incremented after an asset is removed or closed anywhere in it.
+    private final AtomicLong removals;
     private Subscription subscription;
+    private String fullName;
 
     VanillaAsset(FactoryContext<Assetted> context) {
         this.parent = context.parent();
         this.name = context.name();
         this.item = context.item();
+        this.factoryGeneration = parent instanceof VanillaAsset
+                ? ((VanillaAsset) parent).factoryGeneration
+                : new AtomicLong();
+        this.removals = parent instanceof VanillaAsset
+                ? ((VanillaAsset) parent).removals
+                : new AtomicLong();
         if ("".equals(name)) {
             assert parent == null;
         } else {
@@ -56,11 +75,26 @@ public class VanillaAsset implements Asset, Closeable {
         return name;
     }
 
+    @Override
+    public String fullName() {
+        String fullName = this.fullName;
+        if (fullName == null)
+            this.fullName = fullName = Asset.super.fullName();
+        return fullName;
+    }
+
     @Override
     public boolean isReadOnly() {
         return false;
     }
 
+    private <V> V getOrCreateView(Class viewClass, Function<Class, View> creator) {
+        View view = viewMap.get(viewClass);
+        if (view == null)
+            view = viewMap.computeIfAbsent(viewClass, creator);
+        return (V) view;
+    }
+
     @Override
     public <V> V acquireView(Class<V> vClass, String queryString) {
         throw new UnsupportedOperationException("todo");
@@ -70,13 +104,16 @@ public class VanillaAsset implements Asset, Closeable {
     public <V> V acquireView(Class<V> vClass, Class class1, String queryString) {
         if (vClass == Set.class) {
             if (class1 == Map.Entry.class && subscription instanceof KeyValueStore) {
-                return (V) viewMap.computeIfAbsent(EntrySetView.class, aClass ->
+                return getOrCreateView(EntrySetView.class, aClass ->
                         acquireFactory(EntrySetView.class)
                                 .create(factoryContext(VanillaAsset.this).queryString(queryString).item((KeyValueStore) subscription)));
             }
         }
+        if (vClass == Publisher.class && subscription instanceof Publisher) {
+            return (V) subscription;
+        }
         if (vClass == TopicPublisher.class && subscription instanceof KeyValueStore) {
-            return (V) viewMap.computeIfAbsent(TopicPublisher.class, aClass ->
+            return getOrCreateView(TopicPublisher.class, aClass ->
                     acquireFactory(TopicPublisher.class)
                             .create(factoryContext(VanillaAsset.this).queryString(queryString).item((KeyValueStore) subscription)));
         }
@@ -86,7 +123,7 @@ public class VanillaAsset implements Asset, Closeable {
     @Override
     public <V> V acquireView(Class<V> vClass, Class class1, Class class2, String queryString) {
         if ((vClass == Map.class || vClass == ConcurrentMap.class) && subscription instanceof KeyValueStore) {
-            return (V) viewMap.computeIfAbsent(MapView.class, aClass ->
+            return getOrCreateView(MapView.class, aClass ->
                     acquireFactory(MapView.class)
                             .create(factoryContext(VanillaAsset.this).queryString(queryString).item((KeyValueStore) subscription)));
         }
@@ -112,6 +149,28 @@ public class VanillaAsset implements Asset, Closeable {
 
     @Override
     public <I> Factory<I> acquireFactory(Class<I> iClass) throws AssetNotFoundException {
+        CachedFactory cached = cachedFactory(iClass);
+        if (cached.factory == null)
+            throw new AssetNotFoundException(cached.notFound);
+        return cached.factory;
+    }
+
+    private CachedFactory cachedFactory(Class iClass) {
+        // read before the lookup so a factory registered during it makes the result stale.
+        long generation = factoryGeneration.get();
+        CachedFactory cached = factoryCache.get(iClass);
+        if (cached == null || cached.generation != generation) {
+            try {
+                cached = new CachedFactory(generation, findFactory(iClass), null);
+            } catch (AssetNotFoundException e) {
+                cached = new CachedFactory(generation, null, e.getMessage());
+            }
+            factoryCache.put(iClass, cached);
+        }
+        return cached;
+    }
+
+    private <I> Factory<I> findFactory(Class<I> iClass) throws AssetNotFoundException {
         Factory<I> factory = factoryMap.get(iClass);
         if (factory != null)
             return factory;
@@ -155,9 +214,27 @@ public class VanillaAsset implements Asset, Closeable {
         subscription.unregisterSubscriber(eClass, subscriber, query);
     }
 
+    /**
+     * Closes the children, then the asset's store and the stores it wraps, e.g. the ChronicleMaps
+     * under a KeyValueStoreInterceptor.
+     */
     @Override
     public void close() {
-        throw new UnsupportedOperationException("todo");
+        children.values().forEach(VanillaAsset::closeQuietly);
+        children.clear();
+        removals.incrementAndGet();
+        for (Object o = subscription; o != null; o = o instanceof Assetted ? ((Assetted) o).underlying() : null)
+            closeQuietly(o);
+    }
+
+    private static void closeQuietly(Object o) {
+        if (!(o instanceof AutoCloseable))
+            return;
+        try {
+            ((AutoCloseable) o).close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close " + o, e);
+        }
     }
 
     @Override
@@ -203,7 +280,16 @@ public class VanillaAsset implements Asset, Closeable {
         if (assetClass == Map.class || assetClass == ConcurrentMap.class) {
             Factory<KeyValueStore> kvStoreFactory = acquireFactory(KeyValueStore.class);
             KeyValueStore resource = kvStoreFactory.create(factoryContext(this).name(nameQuery[0]).queryString(nameQuery[1]).type(class1).type2(class2));
-            return add(nameQuery[0], resource);
+            KeyValueStore intercepted = intercept(resource, nameQuery[0], nameQuery[1], class1, class2);
+            Asset asset = add(nameQuery[0], intercepted);
+            if (intercepted instanceof KeyValueStoreInterceptor)
+                asset.registerInterceptor(KeyValueStoreInterceptor.class, (KeyValueStoreInterceptor) intercepted);
+            return asset;
+
+        } else if (assetClass == Publisher.class) {
+            Factory<Publisher> publisherFactory = acquireFactory(Publisher.class);
+            Publisher publisher = publisherFactory.create(factoryContext(this).name(nameQuery[0]).queryString(nameQuery[1]).type(class1));
+            return add(nameQuery[0], (Assetted) publisher);
 
         } else if (assetClass == String.class && subscription instanceof KeyValueStore) {
             Factory<SubAsset> subAssetFactory = acquireFactory(SubAsset.class);
@@ -222,6 +308,16 @@ public class VanillaAsset implements Asset, Closeable {
         }
     }
 
+    /**
+     * @return the store wrapped by a KeyValueStoreInterceptor if one has been registered.
+     */
+    private KeyValueStore intercept(KeyValueStore kvStore, String name, String queryString, Class kClass, Class vClass) {
+        Factory<KeyValueStoreInterceptor> factory = cachedFactory(KeyValueStoreInterceptor.class).factory;
+        if (factory == null)
+            return kvStore;
+        return factory.create(factoryContext(this).name(name).queryString(queryString).type(kClass).type2(vClass).item(kvStore));
+    }
+
     @Override
     public Asset getChild(String name) {
         int pos = name.indexOf("/");
@@ -246,7 +342,27 @@ public class VanillaAsset implements Asset, Closeable {
 
     @Override
     public void removeChild(String name) {
-        throw new UnsupportedOperationException("todo");
+        int pos = name.indexOf("/");
+        if (pos >= 0) {
+            Asset asset = getAsset(name.substring(0, pos));
+            if (asset != null)
+                asset.removeChild(name.substring(pos + 1));
+            return;
+        }
+        Asset asset = children.remove(name);
+        if (asset != null) {
+            // after the remove, so a lookup which could still find the asset sees the change.
+            removals.incrementAndGet();
+            closeQuietly(asset);
+        }
+    }
+
+    /**
+     * @return the number of assets removed or closed in this tree, a name resolved is only valid
+     * while it is unchanged.
+     */
+    long removals() {
+        return removals.get();
     }
 
     public Asset add(String name, Assetted resource) {
@@ -271,6 +387,19 @@ public class VanillaAsset implements Asset, Closeable {
     @Override
     public <I> void registerFactory(Class<I> iClass, Factory<I> factory) {
         factoryMap.put(iClass, factory);
+        factoryGeneration.incrementAndGet();
+    }
+
+    static final class CachedFactory {
+        final long generation;
+        final Factory factory;
+        final String notFound;
+
+        CachedFactory(long generation, Factory factory, String notFound) {
+            this.generation = generation;
+            this.factory = factory;
+            this.notFound = notFound;
+        }
     }
 
     @Override
@@ -6,6 +6,9 @@ import net.openhft.chronicle.engine2.map.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
 
 /**
@@ -13,6 +16,8 @@ import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
  */
 public class VanillaSession implements Session {
     final VanillaAsset root = new VanillaAsset(factoryContext(null).name(""));
+    // resolved names by asset class, only valid while no asset has been removed or closed since.
+    private final ConcurrentMap<Class, ConcurrentMap<String, CachedAsset>> assetByName = new ConcurrentHashMap<>();
 
     public VanillaSession() {
         root.registerFactory(SubscriptionKeyValueStore.class, VanillaSubscriptionKeyValueStore::new);
@@ -20,14 +25,37 @@ public class VanillaSession implements Session {
         root.registerFactory(EntrySetView.class, VanillaEntrySetView::new);
         root.registerFactory(Asset.class, VanillaAsset::new);
         root.registerFactory(SubAsset.class, VanillaSubAsset::new);
-        root.registerFactory(KeyValueStore.class, VanillaKeyValueStore::new);
+        root.registerFactory(KeyValueStore.class, context -> context.type() == Long.class
+                ? new LongKeyValueStore<>(context)
+                : new VanillaKeyValueStore<>(context));
         root.registerFactory(TopicPublisher.class, VanillaTopicPublisher::new);
+        root.registerFactory(Publisher.class, VanillaPublisher::new);
     }
 
     @NotNull
     @Override
     public <A> Asset acquireAsset(String name, Class<A> assetClass, Class class1, Class class2) throws AssetNotFoundException {
-        return name.isEmpty() || name.equals("/") ? root : root.acquireChild(name, assetClass, class1, class2);
+        if (name.isEmpty() || name.equals("/"))
+            return root;
+        // read before the lookup so a removal during it makes the result stale.
+        long removals = root.removals();
+        ConcurrentMap<String, CachedAsset> byName = assetByName(assetClass == null ? Object.class : assetClass);
+        CachedAsset cached = byName.get(name);
+        if (cached != null && cached.removals == removals)
+            return cached.asset;
+        Asset asset = root.acquireChild(name, assetClass, class1, class2);
+        byName.put(name, new CachedAsset(asset, removals));
+        return asset;
+    }
+
+    private ConcurrentMap<String, CachedAsset> assetByName(Class assetClass) {
+        ConcurrentMap<String, CachedAsset> byName = assetByName.get(assetClass);
+        if (byName == null) {
+            ConcurrentMap<String, CachedAsset> prev = assetByName.putIfAbsent(assetClass, byName = new ConcurrentHashMap<>());
+            if (prev != null)
+                byName = prev;
+        }
+        return byName;
     }
 
     @Override
@@ -38,7 +66,9 @@ public class VanillaSession implements Session {
     @Nullable
     @Override
     public Asset getAsset(String name) {
-        return name.isEmpty() || name.equals("/") ? root : root.getChild(name);
+        if (name.isEmpty() || name.equals("/"))
+            return root;
+        return root.getChild(name);
     }
 
     @Override
@@ -50,4 +80,14 @@ public class VanillaSession implements Session {
     public void close() {
         root.close();
     }
+
+    static class CachedAsset {
+        final Asset asset;
+        final long removals;
+
+        CachedAsset(Asset asset, long removals) {
+            this.asset = asset;
+            this.removals = removals;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package net.openhft.chronicle.engine2.session;
 
 import net.openhft.chronicle.core.util.Closeable;
 import net.openhft.chronicle.engine2.api.*;
+import net.openhft.chronicle.engine2.api.map.SingleKeySubscriber;
 import net.openhft.chronicle.engine2.api.map.SubAsset;
 import org.jetbrains.annotations.NotNull;
 
@@ -12,7 +13,7 @@ import java.util.stream.Stream;
 /**
  * Created by peter on 22/05/15.
  */
-public class VanillaSubAsset<T> implements SubAsset<T>, Closeable, TopicSubscriber<T> {
+public class VanillaSubAsset<T> implements SubAsset<T>, Closeable, SingleKeySubscriber<T> {
     private final Asset parent;
     private final String name;
     private final Set<Subscriber<T>> subscribers = new CopyOnWriteArraySet<>();
@@ -77,7 +78,7 @@ public class VanillaSubAsset<T> implements SubAsset<T>, Closeable, TopicSubscrib
 
     @Override
     public void close() {
-        throw new UnsupportedOperationException("todo");
+        // nothing held, the subscriptions are in the parent's store which is closed with it.
     }
 
     @Override
@@ -115,10 +116,17 @@ public class VanillaSubAsset<T> implements SubAsset<T>, Closeable, TopicSubscrib
         throw new UnsupportedOperationException("todo");
     }
 
+    @Override
+    public String key() {
+        return name;
+    }
+
+    /**
+     * Called by the parent for changes to this key only.
+     */
     @Override
     public void on(String name, T t) {
-        if (name.equals(this.name))
-            subscribers.forEach(s -> s.on(t));
+        subscribers.forEach(s -> s.on(t));
     }
 
     @Override
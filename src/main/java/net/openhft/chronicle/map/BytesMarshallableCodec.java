@@ -0,0 +1,45 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Writes a {@link BytesMarshallable} directly to the bytes under the wire, bypassing the wire
+ * format altogether.
+ */
+class BytesMarshallableCodec<E extends BytesMarshallable> implements EngineCodec<E> {
+    private final Constructor<E> constructor;
+
+    BytesMarshallableCodec(@NotNull Class<E> eClass) {
+        try {
+            constructor = eClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(eClass + " must have a no argument constructor", e);
+        }
+    }
+
+    @Override
+    public void writeTo(@NotNull Wire wire, @NotNull E e) {
+        e.writeMarshallable(wire.bytes());
+    }
+
+    @Override
+    public E readFrom(@NotNull Wire wire, E using) {
+        E e = using == null ? newInstance() : using;
+        e.readMarshallable(wire.bytes());
+        return e;
+    }
+
+    private E newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
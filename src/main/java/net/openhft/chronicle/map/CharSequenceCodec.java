@@ -0,0 +1,34 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes text, reading into a StringBuilder when one is provided.
+ */
+class CharSequenceCodec<E extends CharSequence> implements EngineCodec<E> {
+    private final Class<E> eClass;
+
+    CharSequenceCodec(@NotNull Class<E> eClass) {
+        this.eClass = eClass;
+    }
+
+    @Override
+    public void writeTo(@NotNull Wire wire, @NotNull E e) {
+        wire.getValueOut().text(e);
+    }
+
+    @Override
+    public E readFrom(@NotNull Wire wire, E using) {
+        if (using instanceof StringBuilder) {
+            wire.getValueIn().text((StringBuilder) using);
+            return using;
+        }
+        if (eClass == StringBuilder.class) {
+            StringBuilder sb = new StringBuilder();
+            wire.getValueIn().text(sb);
+            return (E) sb;
+        }
+        return (E) wire.getValueIn().text();
+    }
+}
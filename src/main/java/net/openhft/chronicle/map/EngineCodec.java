@@ -0,0 +1,37 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Encodes and decodes the keys or values of an {@link EngineMap} to and from a reusable wire.
+ * <p>
+ * The wire passed in is owned by the caller and is expected to be cleared/positioned before the
+ * call, so a codec must not hold on to it.
+ */
+interface EngineCodec<E> {
+
+    void writeTo(@NotNull Wire wire, @NotNull E e);
+
+    /**
+     * @param using an instance to read into, or null if a new instance should be created. Codecs
+     *              which cannot reuse an instance ignore it.
+     */
+    E readFrom(@NotNull Wire wire, @Nullable E using);
+
+    static <E> EngineCodec<E> codecFor(@NotNull Class<E> eClass) {
+        if (BytesMarshallable.class.isAssignableFrom(eClass))
+            return (EngineCodec<E>) new BytesMarshallableCodec<>((Class) eClass);
+
+        if (Marshallable.class.isAssignableFrom(eClass))
+            return (EngineCodec<E>) new MarshallableCodec<>((Class) eClass);
+
+        if (eClass == String.class || eClass == CharSequence.class || eClass == StringBuilder.class)
+            return (EngineCodec<E>) new CharSequenceCodec<>((Class) eClass);
+
+        return new ObjectWireCodec<>(eClass);
+    }
+}
@@ -2,7 +2,6 @@ package net.openhft.chronicle.map;
 
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.hash.function.SerializableFunction;
-import net.openhft.chronicle.wire.TextWire;
 import net.openhft.chronicle.wire.Wire;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -13,10 +12,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 import static net.openhft.chronicle.map.ChronicleMapBuilder.of;
+import static net.openhft.chronicle.map.VanillaChronicleMap.newInstance;
 
 /**
  * Created by Rob Austin
@@ -28,18 +28,30 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
     private final Class<K> kClass;
     private final Class<V> vClass;
 
-    private final Bytes<ByteBuffer> buffer = Bytes.elasticByteBuffer();
+    private final EngineCodec<K> kCodec;
+    private final EngineCodec<V> vCodec;
+
+    // each thread encodes and decodes using its own buffers and wires so no locking is needed.
+    private final ThreadLocal<WireBuffers> buffers;
     private final Map<byte[], byte[]> map;
-    private final Class<? extends Wire> wireType;
 
+    /**
+     * @param wireType the wire used to encode keys and values which are not {@code byte[]} or a
+     *                 {@link net.openhft.chronicle.bytes.BytesMarshallable}, typically BinaryWire,
+     *                 RawWire or TextWire
+     */
     public EngineMap(Map<byte[], byte[]> underlyingMap,
                      Class<K> kClass,
                      Class<V> vClass,
                      Class<? extends Wire> wireType) throws IOException {
-        this.wireType = wireType;
         this.kClass = kClass;
         this.vClass = vClass;
         this.map = underlyingMap;
+        this.kCodec = EngineCodec.codecFor(kClass);
+        this.vCodec = EngineCodec.codecFor(vClass);
+
+        final Function<Bytes, Wire> bytesToWire = Wire.bytesToWire(wireType);
+        this.buffers = ThreadLocal.withInitial(() -> new WireBuffers(bytesToWire));
     }
 
     public static Map<byte[], byte[]> underlyingMap(@NotNull final String name,
@@ -65,69 +77,124 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
         return map.isEmpty();
     }
 
-    Wire toWire() {
-        buffer.clear();
-        if (TextWire.class.isAssignableFrom(wireType)) {
-            return new TextWire(buffer);
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(lookupKeyBytes(key));
+    }
 
-        } else throw new UnsupportedOperationException("todo, wireType="+wireType);
+    private byte[] keyBytes(Object key) {
+        return toBytes(kCodec, key);
     }
 
-    Wire toWire(byte[] bytes) {
-        Bytes<byte[]> wrap = Bytes.wrap(bytes);
+    /**
+     * encodes a key which is only used for the duration of the call, e.g. to look up a value, into
+     * an array reused by this thread for keys of this length.
+     */
+    private byte[] lookupKeyBytes(Object key) {
+        if (key instanceof byte[] || key == null)
+            return (byte[]) key;
 
-        if (TextWire.class.isAssignableFrom(wireType)) {
-            return new TextWire(wrap);
+        final WireBuffers wb = buffers.get();
+        final int length = encode(wb, kCodec, key);
+        byte[] bytes = length < wb.lookupKeys.length ? wb.lookupKeys[length] : null;
+        if (bytes == null) {
+            bytes = new byte[length];
+            if (length < wb.lookupKeys.length)
+                wb.lookupKeys[length] = bytes;
+        }
+        copyTo(wb, bytes);
+        return bytes;
+    }
 
-        } else throw new UnsupportedOperationException("todo, wireType="+wireType);
+    /**
+     * gets the value bytes to be decoded, not returned.  A ChronicleMap reads into the array this
+     * thread read the last value into when the lengths match, so fixed size values are read without
+     * creating an array.
+     */
+    private byte[] valueBytesFor(byte[] keyBytes) {
+        if (vClass == byte[].class || !(map instanceof ChronicleMap))
+            return map.get(keyBytes);
+
+        final WireBuffers wb = buffers.get();
+        final byte[] bytes = ((ChronicleMap<byte[], byte[]>) map).getUsing(keyBytes, wb.value);
+        if (bytes != null)
+            wb.value = bytes;
+        return bytes;
     }
 
-    @Override
-    public boolean containsKey(Object key) {
-        return map.containsKey(bytes(key));
+    private byte[] valueBytes(Object value) {
+        return toBytes(vCodec, value);
     }
 
-    private byte[] bytes(Object b) {
-        if (b instanceof byte[])
-            return (byte[]) b;
+    private <E> byte[] toBytes(EngineCodec<E> codec, Object o) {
+        if (o instanceof byte[])
+            return (byte[]) o;
 
-        if (b == null)
+        if (o == null)
             return null;
-        final Wire wire = toWire();
-        wire.getValueOut().object(b);
-        wire.bytes().flip();
 
-        return toWire().getValueIn().bytes();
+        final WireBuffers wb = buffers.get();
+        final byte[] bytes = new byte[encode(wb, codec, o)];
+        copyTo(wb, bytes);
+        return bytes;
+    }
+
+    // encodes into this thread's write buffer and returns the length.
+    private static <E> int encode(WireBuffers wb, EngineCodec<E> codec, Object o) {
+        final Bytes<ByteBuffer> writeBuffer = wb.writeBuffer;
+        writeBuffer.clear();
+        codec.writeTo(wb.writeWire, (E) o);
+        return (int) writeBuffer.position();
+    }
+
+    private static void copyTo(WireBuffers wb, byte[] bytes) {
+        final ByteBuffer bb = wb.writeBuffer.underlyingObject();
+        bb.position(0);
+        bb.limit(bytes.length);
+        bb.get(bytes);
     }
 
     @Override
     public boolean containsValue(Object value) {
-        return map.containsValue(bytes(value));
+        return map.containsValue(valueBytes(value));
     }
 
     @Override
     public V get(@NotNull final Object key) {
-        return toObject(vClass, () -> {
-
-            final byte[] bytes = bytes(key);
-            return map.get(bytes);
-        });
+        return toValue(valueBytesFor(lookupKeyBytes(key)));
     }
 
+    /**
+     * reads the value into {@code usingValue} where the value type supports it, i.e. it is a
+     * Marshallable, BytesMarshallable or the value is a StringBuilder.
+     */
     @Override
     public V getUsing(K key, V usingValue) {
-        throw new UnsupportedOperationException("todo");
+        nullCheck(key);
+        return toObject(vCodec, vClass, valueBytesFor(lookupKeyBytes(key)), usingValue);
     }
 
+    /**
+     * reads the value into {@code usingValue}, if there is no value for this key {@code
+     * usingValue}, or a new instance if null, is added to the map and returned.
+     */
     @Override
     public V acquireUsing(@NotNull K key, V usingValue) {
-        throw new UnsupportedOperationException("todo");
+        nullCheck(key);
+        final byte[] valueBytes = valueBytesFor(lookupKeyBytes(key));
+        if (valueBytes != null)
+            return toObject(vCodec, vClass, valueBytes, usingValue);
+
+        final V value = usingValue == null ? newValueInstance() : usingValue;
+        // the map keeps the key so it can't be a reused array.
+        final byte[] prev = map.putIfAbsent(keyBytes(key), valueBytes(value));
+        return prev == null ? value : toObject(vCodec, vClass, prev, value);
     }
 
     @NotNull
     @Override
     public MapKeyContext<K, V> acquireContext(@NotNull K key, @NotNull V usingValue) {
-        throw new UnsupportedOperationException("todo");
+        throw new UnsupportedOperationException("contexts are not supported, use acquireUsing");
     }
 
     @Override
@@ -152,17 +219,17 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
 
     @Override
     public V newValueInstance() {
-        throw new UnsupportedOperationException("todo");
+        return (V) newInstance(vClass, false);
     }
 
     @Override
     public K newKeyInstance() {
-        return null;
+        return newInstance(kClass, true);
     }
 
     @Override
     public Class<K> keyClass() {
-        return null;
+        return kClass;
     }
 
     @Override
@@ -176,40 +243,48 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
 
     @Override
     public Class<V> valueClass() {
-        return null;
+        return vClass;
     }
 
-    private <E> E toObject(Class<E> eClass, Supplier<byte[]> b) {
-        final byte[] bytes = b.get();
+    private V toValue(byte[] bytes) {
+        return toObject(vCodec, vClass, bytes, null);
+    }
+
+    private <E> E toObject(EngineCodec<E> codec, Class<E> eClass, byte[] bytes, E using) {
         if (byte[].class.isAssignableFrom(eClass))
             return (E) bytes;
 
         if (bytes == null)
             return null;
-        final Wire wire = toWire(bytes);
-        buffer.flip();
-        return wire.getValueIn().object(eClass);
+
+        final WireBuffers wb = buffers.get();
+        final Bytes<ByteBuffer> readBuffer = wb.readBuffer;
+        readBuffer.ensureCapacity(bytes.length);
+        final ByteBuffer dst = readBuffer.underlyingObject();
+        dst.clear();
+        dst.put(bytes);
+
+        readBuffer.position(0);
+        readBuffer.limit(bytes.length);
+        return codec.readFrom(wb.readWire, using);
     }
 
     @Override
     public V put(final K key, final V value) {
         nullCheck(key);
-        return toObject(vClass, () -> {
-            final byte[] put = map.put(bytes(key), bytes(value));
-            return put;
-        });
+        return toValue(map.put(keyBytes(key), valueBytes(value)));
     }
 
     @Override
     public V remove(Object key) {
         nullCheck(key);
-        return toObject(vClass, () -> map.remove(bytes(key)));
+        return toValue(map.remove(lookupKeyBytes(key)));
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
         for (final Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
-            map.put(bytes(e.getKey()), bytes(e.getValue()));
+            map.put(keyBytes(e.getKey()), valueBytes(e.getValue()));
         }
 
     }
@@ -318,12 +393,12 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
                         return new Entry<K, V>() {
                             @Override
                             public K getKey() {
-                                return toObject(kClass, () -> next.getKey());
+                                return toObject(kCodec, kClass, next.getKey(), null);
                             }
 
                             @Override
                             public V getValue() {
-                                return toObject(vClass, () -> next.getValue());
+                                return toValue(next.getValue());
                             }
 
                             @Override
@@ -362,7 +437,7 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
     public V putIfAbsent(K key, V value) {
         nullCheck(key);
         //  nullCheck(value);
-        return toObject(vClass, () -> map.putIfAbsent(bytes(key), bytes(value)));
+        return toValue(map.putIfAbsent(keyBytes(key), valueBytes(value)));
     }
 
     private void nullCheck(Object o) {
@@ -374,7 +449,7 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
     public boolean remove(Object key, Object value) {
         nullCheck(key);
 
-        return map.remove(bytes(key), bytes(value));
+        return map.remove(lookupKeyBytes(key), valueBytes(value));
     }
 
     @Override
@@ -382,14 +457,14 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
         nullCheck(key);
         nullCheck(oldValue);
         nullCheck(newValue);
-        return map.replace(bytes(key), bytes(oldValue), bytes(newValue));
+        return map.replace(keyBytes(key), valueBytes(oldValue), valueBytes(newValue));
     }
 
     @Override
     public V replace(K key, V value) {
         nullCheck(key);
         //  nullCheck(value);
-        return toObject(vClass, () -> map.replace(bytes(key), bytes(value)));
+        return toValue(map.replace(keyBytes(key), valueBytes(value)));
     }
 
     @Override
@@ -411,6 +486,22 @@ public class EngineMap<K, V> implements ChronicleMap<K, V> {
     public void close() {
     }
 
+    private static final class WireBuffers {
+        static final int MAX_LOOKUP_KEY_LENGTH = 256;
+
+        final Bytes<ByteBuffer> writeBuffer = Bytes.elasticByteBuffer();
+        final Bytes<ByteBuffer> readBuffer = Bytes.elasticByteBuffer();
+        final byte[][] lookupKeys = new byte[MAX_LOOKUP_KEY_LENGTH][];
+        byte[] value;
+        final Wire writeWire;
+        final Wire readWire;
+
+        WireBuffers(Function<Bytes, Wire> bytesToWire) {
+            writeWire = bytesToWire.apply(writeBuffer);
+            readWire = bytesToWire.apply(readBuffer);
+        }
+    }
+
     @Override
     public String toString() {
         if (isEmpty())
@@ -0,0 +1,45 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Writes a {@link Marshallable} as a nested marshallable so it can be read back into an existing
+ * instance without creating a new one.
+ */
+class MarshallableCodec<E extends Marshallable> implements EngineCodec<E> {
+    private final Constructor<E> constructor;
+
+    MarshallableCodec(@NotNull Class<E> eClass) {
+        try {
+            constructor = eClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(eClass + " must have a no argument constructor", e);
+        }
+    }
+
+    @Override
+    public void writeTo(@NotNull Wire wire, @NotNull E e) {
+        wire.getValueOut().marshallable(e);
+    }
+
+    @Override
+    public E readFrom(@NotNull Wire wire, E using) {
+        E e = using == null ? newInstance() : using;
+        wire.getValueIn().marshallable(e);
+        return e;
+    }
+
+    private E newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
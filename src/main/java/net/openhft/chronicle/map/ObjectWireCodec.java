@@ -0,0 +1,26 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes any type the wire supports as a single value, the encoding is whatever the wire is
+ * e.g. BinaryWire, RawWire or TextWire.
+ */
+class ObjectWireCodec<E> implements EngineCodec<E> {
+    private final Class<E> eClass;
+
+    ObjectWireCodec(@NotNull Class<E> eClass) {
+        this.eClass = eClass;
+    }
+
+    @Override
+    public void writeTo(@NotNull Wire wire, @NotNull E e) {
+        wire.getValueOut().object(e);
+    }
+
+    @Override
+    public E readFrom(@NotNull Wire wire, E using) {
+        return wire.getValueIn().object(eClass);
+    }
+}
@@ -19,58 +19,99 @@
 package net.openhft.chronicle.engine.queue;
 
 import net.openhft.chronicle.engine.ThreadMonitoringTest;
+import net.openhft.chronicle.engine.client.RemoteTcpClientChronicleContext;
+import net.openhft.chronicle.engine.client.internal.ChronicleEngine;
+import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.wire.TextWire;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
 
 /**
  * @author Rob Austin.
  */
 public class WireRemoteStatelessQueueClientTest extends ThreadMonitoringTest {
-
-    /*private static final Logger LOG = LoggerFactory.getLogger(WireRemoteStatelessQueueClientTest.class);
+    private File queueDir;
+
+    @After
+    public void deleteQueues() {
+        if (queueDir == null)
+            return;
+        File[] files = queueDir.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        queueDir.delete();
+    }
 
     @Test(timeout = 50000)
-    @Ignore
-    public void testLastWrittenIndex() throws IOException, InterruptedException {
-
-        try (RemoteQueueSupplier remoteQueueSupplier = new RemoteQueueSupplier()) {
-            final ChronicleQueue clientQueue = remoteQueueSupplier.get();
-            //Create an appender
-            ExcerptAppender appender = clientQueue.createAppender();
-            StringBuilder sb = new StringBuilder();
-            ExcerptTailer tailer = clientQueue.createTailer();
-            long lastIndex = -1;
+    public void testAppendAndTail() throws IOException {
+        queueDir = Files.createTempDirectory("queues").toFile();
+        try (RemoteQueueSupplier remoteQueueSupplier = new RemoteQueueSupplier(queueDir.getPath())) {
+            final QueueView clientQueue = remoteQueueSupplier.get();
+            final long start = clientQueue.lastWrittenIndex() + 1;
+            final QueueTailer tailer = clientQueue.createTailer(start, 3);
+            assertNull(tailer.next());
 
-            for (int i = 0; i < 5; i++) {
-                final int finalI = i;
-                appender.writeDocument(wire -> wire.write(() -> "Message").text("Hello" + finalI));
+            long lastIndex = -1;
+            for (int i = 0; i < 10; i++)
+                lastIndex = clientQueue.append(("Hello" + i).getBytes(StandardCharsets.ISO_8859_1));
 
-//                System.out.println(Wires.fromSizePrefixedBlobs(tailer.wire().bytes()));
-                assertTrue(tailer.readDocument(wire -> {
-                    wire.read(() -> "Message")
-                            .text(sb);
-                    assertEquals("Hello" + finalI, sb.toString());
-                }));
+            assertEquals(start + 9, lastIndex);
+            assertEquals(lastIndex, clientQueue.lastWrittenIndex());
 
-                System.out.println(lastIndex = appender.lastWrittenIndex());
+            for (int i = 0; i < 10; i++) {
+                byte[] excerpt = tailer.next();
+                assertNotNull(excerpt);
+                assertEquals("Hello" + i, new String(excerpt, StandardCharsets.ISO_8859_1));
+                assertEquals(start + i, tailer.index());
             }
+            assertNull(tailer.next());
+        }
+    }
 
-            assertEquals(lastIndex, clientQueue.lastWrittenIndex());
-
-            System.out.println("Result: " + sb);
+    @Test
+    public void queueNamesCantLeaveTheBasePath() throws IOException {
+        queueDir = Files.createTempDirectory("queues").toFile();
+        ChronicleEngine engine = new ChronicleEngine();
+        try {
+            engine.setQueueBasePath(queueDir.getPath());
+            for (String name : new String[]{"../escaped", "sub/queue", "..", ""}) {
+                try {
+                    engine.getQueue(name);
+                    fail(name);
+                } catch (IllegalArgumentException expected) {
+                    // rejected before any file is created.
+                }
+            }
+            assertFalse(new File(queueDir.getParentFile(), "escaped.data").exists());
+        } finally {
+            engine.close();
         }
     }
 
-    public static class RemoteQueueSupplier implements Closeable, Supplier<ChronicleQueue> {
+    public static class RemoteQueueSupplier implements Closeable, Supplier<QueueView> {
 
         private final ServerEndpoint serverEndpoint;
-        private final ChronicleQueue queue;
+        private final QueueView queue;
         private final RemoteTcpClientChronicleContext context;
 
-        public RemoteQueueSupplier() throws IOException {
-            serverEndpoint = new ServerEndpoint((byte) 1, new ChronicleEngine());
+        public RemoteQueueSupplier(String queueBasePath) throws IOException {
+            ChronicleEngine engine = new ChronicleEngine();
+            engine.setQueueBasePath(queueBasePath);
+            serverEndpoint = new ServerEndpoint((byte) 1, engine, TextWire.class);
             int serverPort = serverEndpoint.getPort();
 
-            context = new RemoteTcpClientChronicleContext("localhost", serverPort, (byte) 2);
-            queue = context.getQueue("test");
+            context = new RemoteTcpClientChronicleContext("localhost", serverPort, (byte) 2, TextWire.class);
+            queue = context.getQueue("test" + System.nanoTime());
         }
 
         @Override
@@ -82,10 +123,8 @@ public class WireRemoteStatelessQueueClientTest extends ThreadMonitoringTest {
         }
 
         @Override
-        public ChronicleQueue get() {
+        public QueueView get() {
             return queue;
         }
-    }*/
-
+    }
 }
-
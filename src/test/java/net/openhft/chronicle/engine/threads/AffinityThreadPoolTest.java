@@ -0,0 +1,133 @@
+package net.openhft.chronicle.engine.threads;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AffinityThreadPoolTest {
+
+    @Test(timeout = 10000)
+    public void runsTasksOnNamedWorkers() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            AffinityThreadPool pool = new AffinityThreadPool("test", 2, waitStrategy, false);
+            try {
+                Future<String> name = pool.submit(() -> Thread.currentThread().getName());
+                assertTrue(name.get().startsWith("test-"));
+
+                AtomicInteger count = new AtomicInteger();
+                CountDownLatch done = new CountDownLatch(1000);
+                for (int i = 0; i < 1000; i++)
+                    pool.execute(() -> {
+                        count.incrementAndGet();
+                        done.countDown();
+                    });
+                done.await();
+                assertEquals(1000, count.get());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void pinnedRunsWithoutReservedCpus() throws Exception {
+        AffinityThreadPool pool = new AffinityThreadPool("pinned", 1, WaitStrategy.PARK);
+        assertEquals(42, (int) pool.submit(() -> 42).get());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void shutdownRunsQueuedTasksThenRejects() throws InterruptedException {
+        AffinityThreadPool pool = new AffinityThreadPool("test", 1, WaitStrategy.PARK, false);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        pool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran.incrementAndGet();
+        });
+        pool.execute(ran::incrementAndGet);
+        pool.shutdown();
+        try {
+            pool.execute(ran::incrementAndGet);
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        release.countDown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, ran.get());
+    }
+
+    @Test(timeout = 10000)
+    public void executeRacingShutdownIsRunOrRejected() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            AffinityThreadPool pool = new AffinityThreadPool("test", 2, WaitStrategy.YIELD, false);
+            AtomicInteger ran = new AtomicInteger();
+            AtomicInteger accepted = new AtomicInteger();
+            Thread submitter = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    try {
+                        pool.execute(ran::incrementAndGet);
+                        accepted.incrementAndGet();
+                    } catch (RejectedExecutionException e) {
+                        return;
+                    }
+                }
+            });
+            submitter.start();
+            pool.shutdown();
+            submitter.join();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            // nothing accepted is lost
+            assertEquals(accepted.get(), ran.get());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shutdownNowStopsWorkersAndReturnsQueuedTasks() throws InterruptedException {
+        AffinityThreadPool pool = new AffinityThreadPool("test", 1, WaitStrategy.BUSY_SPIN, false);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException expected) {
+            }
+        });
+        started.await();
+        for (int i = 0; i < 5; i++)
+            pool.execute(() -> fail("should not run"));
+
+        List<Runnable> remaining = pool.shutdownNow();
+        assertEquals(5, remaining.size());
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(pool.isTerminated());
+    }
+
+    @Test
+    public void of() {
+        AffinityThreadPool pool = AffinityThreadPool.of("subscribers", "2:busy_spin:unpinned");
+        try {
+            assertEquals("subscribers", pool.name());
+            assertTrue(pool.toString().contains("threads=2"));
+            assertTrue(pool.toString().contains("BUSY_SPIN"));
+        } finally {
+            pool.shutdownNow();
+        }
+        for (String bad : new String[]{"", "two", "1:SLEEP", "1:PARK:pinned", "0"}) {
+            try {
+                AffinityThreadPool.of("bad", bad).shutdownNow();
+                fail(bad);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
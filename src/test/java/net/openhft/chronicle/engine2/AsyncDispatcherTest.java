@@ -0,0 +1,78 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import net.openhft.chronicle.engine2.map.AsyncDispatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncDispatcherTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void slowSubscriberDoesntBlockWriter() throws InterruptedException {
+        ConcurrentMap<String, String> map = acquireMap("async", String.class, String.class);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        TopicSubscriber<String> subscriber = (topic, message) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            received.add(topic + "=" + message);
+        };
+        registerTopicSubscriber("async?async=true&bufferSize=64", String.class, subscriber);
+
+        for (int i = 0; i < 10; i++)
+            map.put("key-" + i, "value-" + i);
+        assertEquals(0, received.size());
+
+        release.countDown();
+        for (int i = 0; i < 100 && received.size() < 10; i++)
+            Thread.sleep(10);
+        assertEquals(10, received.size());
+        assertEquals("key-0=value-0", received.get(0));
+        unregisterTopicSubscriber("async", String.class, subscriber);
+    }
+
+    @Test
+    public void conflatesByKey() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, String> latest = new ConcurrentHashMap<>();
+        AsyncDispatcher<String[]> dispatcher = new AsyncDispatcher<>(kv -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            latest.put(kv[0], kv[1]);
+        }, kv -> kv[0], 16, AsyncDispatcher.BackPressure.CONFLATE, true);
+
+        dispatcher.accept(new String[]{"first", "0"});
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++)
+            dispatcher.accept(new String[]{"key-" + (i % 3), "" + i});
+        assertEquals(3, dispatcher.depth());
+        release.countDown();
+        for (int i = 0; i < 100 && latest.size() < 4; i++)
+            Thread.sleep(10);
+        assertEquals("99", latest.get("key-0"));
+        assertEquals("97", latest.get("key-1"));
+        assertEquals("98", latest.get("key-2"));
+        assertEquals(97, dispatcher.conflated());
+        dispatcher.close();
+    }
+}
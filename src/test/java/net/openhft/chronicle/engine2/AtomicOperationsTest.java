@@ -0,0 +1,62 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AtomicOperationsTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void concurrentMergeIsAtomic() throws InterruptedException {
+        registerFactory("", KeyValueStore.class, context -> new VanillaKeyValueStore(context, 8));
+        ConcurrentMap<String, Long> map = acquireMap("counters", String.class, Long.class);
+        LongAdder events = new LongAdder();
+        registerTopicSubscriber("counters", Long.class, (TopicSubscriber<Long>) (topic, message) -> events.increment());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++)
+                    map.merge("count-" + (i % 10), 1L, Long::sum);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(4000L, (long) map.get("count-" + i));
+        assertEquals(40000, events.sum());
+    }
+
+    @Test
+    public void oneEventPerChange() {
+        ConcurrentMap<Long, String> map = acquireMap("longs", Long.class, String.class);
+        List<String> events = new ArrayList<>();
+        registerTopicSubscriber("longs", String.class, (TopicSubscriber<String>) (topic, message) -> events.add(topic + "=" + message));
+
+        assertEquals("a", map.computeIfAbsent(1L, k -> "a"));
+        assertEquals("a", map.computeIfAbsent(1L, k -> "b"));
+        assertEquals("ab", map.compute(1L, (k, v) -> v + "b"));
+        assertNull(map.computeIfPresent(2L, (k, v) -> "c"));
+        assertNull(map.compute(1L, (k, v) -> null));
+        assertEquals(0, map.size());
+        assertEquals("[1=a, 1=ab, 1=null]", events.toString());
+    }
+}
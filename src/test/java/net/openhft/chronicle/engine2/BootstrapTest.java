@@ -0,0 +1,139 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+
+public class BootstrapTest {
+    final AtomicInteger segmentScans = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        resetChassis();
+        registerFactory("", KeyValueStore.class, context -> new VanillaKeyValueStore(context, 8) {
+            @Override
+            public void entriesFor(int segment, Consumer kvConsumer) {
+                segmentScans.incrementAndGet();
+                super.entriesFor(segment, kvConsumer);
+            }
+        });
+    }
+
+    @Test
+    public void noChangeLostWhileBootstrapping() throws InterruptedException {
+        ConcurrentMap<String, String> map = acquireMap("replicated", String.class, String.class);
+        for (int i = 0; i < 10000; i++)
+            map.put("key-" + i, "value-" + i);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int n = 0; running.get(); n++) {
+                String key = "key-" + (n % 12000);
+                if (n % 7 == 0)
+                    map.remove(key);
+                else
+                    map.put(key, "value-" + n);
+            }
+        });
+        writer.start();
+
+        Map<String, String> replica = new ConcurrentHashMap<>();
+        TopicSubscriber<String> subscriber = (topic, message) -> {
+            if (message == null)
+                replica.remove(topic);
+            else
+                replica.put(topic, message);
+        };
+        registerTopicSubscriber("replicated?bootstrap=async", String.class, subscriber);
+        Thread.sleep(100);
+        running.set(false);
+        writer.join();
+
+        Map<String, String> expected = new HashMap<>(map);
+        for (int i = 0; i < 100 && !expected.equals(replica); i++)
+            Thread.sleep(10);
+        assertEquals(expected, replica);
+        unregisterTopicSubscriber("replicated", String.class, subscriber);
+    }
+
+    @Test
+    public void concurrentBootstrapsShareAScan() throws InterruptedException {
+        ConcurrentMap<String, String> map = acquireMap("shared", String.class, String.class);
+        for (int i = 0; i < 1000; i++)
+            map.put("key-" + i, "value-" + i);
+        segmentScans.set(0);
+
+        List<Set<String>> keySets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Set<String> keys = ConcurrentHashMap.newKeySet();
+            keySets.add(keys);
+            registerSubscriber("shared?bootstrap=async&bootstrapWindow=500", String.class, (Subscriber<String>) keys::add);
+        }
+        for (Set<String> keys : keySets) {
+            for (int i = 0; i < 200 && keys.size() < 1000; i++)
+                Thread.sleep(10);
+            assertEquals(1000, keys.size());
+        }
+        assertEquals(8, segmentScans.get());
+    }
+
+    @Test
+    public void noChangeSeenTwiceWhileBootstrapping() throws InterruptedException {
+        ConcurrentMap<String, String> map = acquireMap("increasing", String.class, String.class);
+        for (int i = 0; i < 1000; i++)
+            map.put("key-" + i, Integer.toString(i));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int n = 1000; running.get(); n++)
+                map.put("key-" + (n % 1000), Integer.toString(n));
+        });
+        writer.start();
+
+        // each key's values only increase, so a value seen again is a duplicate.
+        AtomicInteger duplicates = new AtomicInteger();
+        List<Map<String, Integer>> replicas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Integer> last = new ConcurrentHashMap<>();
+            replicas.add(last);
+            registerTopicSubscriber("increasing?bootstrap=true", String.class, (topic, message) -> {
+                int value = Integer.parseInt(message);
+                Integer prev = last.put(topic, value);
+                if (prev != null && prev >= value)
+                    duplicates.incrementAndGet();
+            });
+        }
+        running.set(false);
+        writer.join();
+
+        for (Map<String, Integer> last : replicas)
+            assertEquals(1000, last.size());
+        assertEquals(0, duplicates.get());
+    }
+
+    @Test(timeout = 5000)
+    public void syncBootstrapDoesntWaitForAnAsyncWindow() {
+        ConcurrentMap<String, String> map = acquireMap("windowed", String.class, String.class);
+        for (int i = 0; i < 100; i++)
+            map.put("key-" + i, "value-" + i);
+
+        registerSubscriber("windowed?bootstrap=async&bootstrapWindow=60000", String.class, (Subscriber<String>) key -> {
+        });
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        registerSubscriber("windowed?bootstrap=true", String.class, (Subscriber<String>) keys::add);
+        assertEquals(100, keys.size());
+    }
+}
@@ -284,7 +284,37 @@ public class ChassisTest {
         assertSame(mi, mi2);
     }
 
+    @Test
+    public void manyKeySubscriptions() {
+        ConcurrentMap<String, String> map = acquireMap("many-keys", String.class, String.class);
+        int[] counts = new int[1000];
+        for (int i = 0; i < counts.length; i++) {
+            int n = i;
+            registerSubscriber("many-keys/Key-" + i, String.class, (Subscriber<String>) v -> counts[n]++);
+        }
+        map.put("Key-7", "Value-7");
+        map.put("Key-7", "Value-8");
+        map.put("other", "Value-9");
+        assertEquals(2, counts[7]);
+        assertEquals(2, java.util.stream.IntStream.of(counts).sum());
+    }
+
     static class MyInterceptor implements Interceptor {
 
     }
+
+    @Test
+    public void removedAssetsArentReturnedAgain() {
+        ConcurrentMap<String, String> map = acquireMap("group/removed", String.class, String.class);
+        map.put("hello", "world");
+        Asset asset = acquireAsset("group/removed", ConcurrentMap.class, String.class, String.class);
+        assertSame(asset, acquireAsset("group/removed", ConcurrentMap.class, String.class, String.class));
+
+        acquireAsset("group", Void.class, null, null).removeChild("removed");
+        assertNull(defaultSession().getAsset("group/removed"));
+
+        Asset recreated = acquireAsset("group/removed", ConcurrentMap.class, String.class, String.class);
+        assertNotSame(asset, recreated);
+        assertTrue(acquireMap("group/removed", String.class, String.class).isEmpty());
+    }
 }
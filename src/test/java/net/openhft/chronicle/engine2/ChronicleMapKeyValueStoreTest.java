@@ -0,0 +1,60 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.api.map.KeyValueStoreInterceptor;
+import net.openhft.chronicle.engine2.map.ChronicleMapKeyValueStore;
+import net.openhft.chronicle.engine2.map.MetricsKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+
+public class ChronicleMapKeyValueStoreTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+        registerFactory("offheap", KeyValueStore.class, context -> new ChronicleMapKeyValueStore(context, 10_000, 4, 16, 16));
+    }
+
+    @Test
+    public void offHeapMap() {
+        ConcurrentMap<String, String> map = acquireMap("offheap/prices", String.class, String.class);
+        for (int i = 0; i < 1000; i++)
+            map.put("key-" + i, "value-" + i);
+        assertEquals(1000, map.size());
+        assertEquals("value-10", map.put("key-10", "changed"));
+        assertEquals("changed", map.remove("key-10"));
+
+        Set<String> keys = new TreeSet<>();
+        registerSubscriber("offheap/prices?bootstrap=true", String.class, (Subscriber<String>) keys::add);
+        assertEquals(999, keys.size());
+    }
+
+    @Test
+    public void closingTheSessionClosesTheMaps() {
+        List<KeyValueStore> closed = new ArrayList<>();
+        registerFactory("closing", KeyValueStore.class, context -> new ChronicleMapKeyValueStore(context, 1_000, 2, 16, 16) {
+            @Override
+            public void close() {
+                super.close();
+                closed.add(this);
+            }
+        });
+        registerFactory("closing", KeyValueStoreInterceptor.class, MetricsKeyValueStore::new);
+
+        ConcurrentMap<String, String> map = acquireMap("closing/prices", String.class, String.class);
+        map.put("key", "value");
+        acquireMap("closing/volumes", String.class, String.class);
+
+        defaultSession().close();
+        assertEquals(2, closed.size());
+    }
+}
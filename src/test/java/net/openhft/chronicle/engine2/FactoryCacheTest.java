@@ -0,0 +1,71 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Asset;
+import net.openhft.chronicle.engine2.api.AssetNotFoundException;
+import net.openhft.chronicle.engine2.api.Factory;
+import net.openhft.chronicle.engine2.session.VanillaSession;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class FactoryCacheTest {
+
+    @Test
+    public void registeringAFactoryInvalidatesCachedLookups() {
+        VanillaSession session = new VanillaSession();
+        Asset root = session.acquireAsset("", null, null, null);
+        Asset child = session.acquireAsset("a/b", Void.class, null, null);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                child.acquireFactory(Runnable.class);
+                fail();
+            } catch (AssetNotFoundException expected) {
+            }
+        }
+
+        Factory<Runnable> first = context -> () -> {
+        };
+        root.registerFactory(Runnable.class, first);
+        assertSame(first, child.acquireFactory(Runnable.class));
+        assertSame(first, child.acquireFactory(Runnable.class));
+
+        Factory<Runnable> second = context -> () -> {
+        };
+        session.acquireAsset("a", Void.class, null, null).registerFactory(Runnable.class, second);
+        assertSame(second, child.acquireFactory(Runnable.class));
+        assertSame(first, root.acquireFactory(Runnable.class));
+    }
+
+    @Test(timeout = 10000)
+    public void noStaleFactoryAfterConcurrentRegistration() throws InterruptedException {
+        VanillaSession session = new VanillaSession();
+        Asset root = session.acquireAsset("", null, null, null);
+        Asset child = session.acquireAsset("a/b", Void.class, null, null);
+        AtomicReference<Factory<Runnable>> last = new AtomicReference<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    child.acquireFactory(Runnable.class);
+                } catch (AssetNotFoundException ignored) {
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 10000; i++) {
+            Factory<Runnable> factory = context -> () -> {
+            };
+            last.set(factory);
+            root.registerFactory(Runnable.class, factory);
+        }
+        running.set(false);
+        reader.join();
+
+        assertSame(last.get(), child.acquireFactory(Runnable.class));
+    }
+}
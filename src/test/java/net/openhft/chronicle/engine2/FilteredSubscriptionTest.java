@@ -0,0 +1,113 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import net.openhft.chronicle.engine2.api.map.MapEvent;
+import net.openhft.chronicle.engine2.map.InsertedEvent;
+import net.openhft.chronicle.engine2.map.RemovedEvent;
+import net.openhft.chronicle.engine2.map.UpdatedEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FilteredSubscriptionTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    static class Trade {
+        final double price;
+        final String venue;
+
+        Trade(double price, String venue) {
+            this.price = price;
+            this.venue = venue;
+        }
+
+        @Override
+        public String toString() {
+            return price + "@" + venue;
+        }
+    }
+
+    @Test
+    public void onlyMatchingEventsAreDelivered() {
+        ConcurrentMap<String, Trade> map = acquireMap("trades", String.class, Trade.class);
+        Trade early = new Trade(150, "XLON");
+        map.put("t0", early);
+
+        List<MapEvent> events = new ArrayList<>();
+        registerSubscriber("trades?where.price>100&where.venue=XLON&bootstrap=true", MapEvent.class, (Subscriber<MapEvent>) events::add);
+        List<String> topics = new ArrayList<>();
+        registerTopicSubscriber("trades?where.price<=100", Trade.class, (TopicSubscriber<Trade>) (k, t) -> topics.add(k + "=" + t));
+
+        Trade match = new Trade(101, "XLON");
+        map.put("t1", match);
+        map.put("t2", new Trade(101, "XPAR"));
+        map.put("t3", new Trade(99, "XLON"));
+        map.remove("t1");
+
+        assertEquals(3, events.size());
+        assertEquals(InsertedEvent.of("t0", early), events.get(0));
+        assertEquals(InsertedEvent.of("t1", match), events.get(1));
+        assertEquals(RemovedEvent.of("t1", match), events.get(2));
+        assertEquals("[t3=99.0@XLON]", topics.toString());
+    }
+
+    @Test
+    public void entriesLeavingTheFilterAreRemovals() {
+        ConcurrentMap<String, Trade> map = acquireMap("trades", String.class, Trade.class);
+        List<MapEvent> events = new ArrayList<>();
+        registerSubscriber("trades?where.price>100", MapEvent.class, (Subscriber<MapEvent>) events::add);
+        List<String> topics = new ArrayList<>();
+        registerTopicSubscriber("trades?where.price>100", Trade.class, (TopicSubscriber<Trade>) (k, t) -> topics.add(k + "=" + t));
+
+        Trade low = new Trade(90, "XLON"), high = new Trade(110, "XLON"), higher = new Trade(120, "XLON");
+        map.put("t1", low);
+        map.put("t1", high);
+        map.put("t1", higher);
+        map.put("t1", low);
+        map.remove("t1");
+
+        assertEquals(3, events.size());
+        assertEquals(InsertedEvent.of("t1", high), events.get(0));
+        assertEquals(UpdatedEvent.of("t1", high, higher), events.get(1));
+        assertEquals(RemovedEvent.of("t1", higher), events.get(2));
+        assertEquals("[t1=110.0@XLON, t1=120.0@XLON, t1=null]", topics.toString());
+    }
+
+    static class Account {
+        int reads;
+
+        public int balance() {
+            reads++;
+            return 100;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+    }
+
+    @Test
+    public void onlyGettersAndFieldsAreRead() {
+        ConcurrentMap<String, Account> map = acquireMap("accounts", String.class, Account.class);
+        List<MapEvent> events = new ArrayList<>();
+        registerSubscriber("accounts?where.balance=100", MapEvent.class, (Subscriber<MapEvent>) events::add);
+        registerSubscriber("accounts?where.open=true", MapEvent.class, (Subscriber<MapEvent>) events::add);
+        Account account = new Account();
+        map.put("a1", account);
+
+        assertEquals(0, account.reads);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof InsertedEvent);
+    }
+}
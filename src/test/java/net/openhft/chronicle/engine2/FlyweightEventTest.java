@@ -0,0 +1,50 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.map.MapEvent;
+import net.openhft.chronicle.engine2.map.InsertedEvent;
+import net.openhft.chronicle.engine2.map.RemovedEvent;
+import net.openhft.chronicle.engine2.map.UpdatedEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+
+public class FlyweightEventTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void eventsAreReused() {
+        ConcurrentMap<String, String> map = acquireMap("flyweight", String.class, String.class);
+        map.put("Key-0", "Value-0");
+
+        Set<MapEvent> instances = new HashSet<>();
+        List<MapEvent> copies = new ArrayList<>();
+        Subscriber<MapEvent> subscriber = e -> {
+            instances.add(e);
+            copies.add(e.copy());
+        };
+        registerSubscriber("flyweight?flyweight=true&bootstrap=true", MapEvent.class, subscriber);
+
+        map.put("Key-1", "Value-1");
+        map.put("Key-1", "Value-2");
+        map.remove("Key-1");
+
+        assertEquals(InsertedEvent.of("Key-0", "Value-0"), copies.get(0));
+        assertEquals(InsertedEvent.of("Key-1", "Value-1"), copies.get(1));
+        assertEquals(UpdatedEvent.of("Key-1", "Value-1", "Value-2"), copies.get(2));
+        assertEquals(RemovedEvent.of("Key-1", "Value-2"), copies.get(3));
+        // one for the bootstrap, one for this thread's updates.
+        assertEquals(2, instances.size());
+    }
+}
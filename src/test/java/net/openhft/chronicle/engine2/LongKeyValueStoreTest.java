@@ -0,0 +1,122 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine.TestMarshallable;
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.map.MapView;
+import net.openhft.chronicle.engine2.map.LongKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
+import static org.junit.Assert.*;
+
+public class LongKeyValueStoreTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void putGetRemove() {
+        LongKeyValueStore<String> store = new LongKeyValueStore<>(factoryContext(null), 4);
+        for (long i = -5000; i < 5000; i++)
+            assertNull(store.getAndPut(i * 31, "v" + i));
+        assertEquals(10000, store.size());
+        for (long i = -5000; i < 5000; i += 2)
+            assertEquals("v" + i, store.getAndRemove(i * 31));
+        assertEquals(5000, store.size());
+        for (long i = -5000; i < 5000; i++)
+            assertEquals(i % 2 == 0 ? null : "v" + i, store.get(i * 31));
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void acquiredForLongKeys() {
+        ConcurrentMap<Long, String> map = acquireMap("orders", Long.class, String.class);
+        map.put(1L, "one");
+        map.put(2L, "two");
+        assertEquals("one", map.remove(1L));
+        assertEquals(1, map.size());
+        assertTrue(((MapView) map).underlying().underlying() instanceof LongKeyValueStore);
+    }
+
+    @Test
+    public void getUsingCopiesIntoTheValueSupplied() {
+        LongKeyValueStore<TestMarshallable> store = new LongKeyValueStore<>(factoryContext(null));
+        TestMarshallable value = new TestMarshallable();
+        value.setName(new StringBuilder("order"));
+        value.setCount(3);
+        store.getAndPut(1L, value);
+
+        TestMarshallable using = new TestMarshallable();
+        assertSame(using, store.getUsing(1L, using));
+        assertEquals("order", using.getName().toString());
+        assertEquals(3, using.getCount());
+        assertNull(store.getUsing(2L, using));
+    }
+
+    @Test
+    public void iterateWhileRemoving() {
+        LongKeyValueStore<String> store = new LongKeyValueStore<>(factoryContext(null), 4);
+        for (long i = 0; i < 1000; i++)
+            store.getAndPut(i, "v" + i);
+
+        Set<Long> seen = new HashSet<>();
+        for (Iterator<Map.Entry<Long, String>> iter = store.entrySetIterator(); iter.hasNext(); ) {
+            Map.Entry<Long, String> e = iter.next();
+            assertTrue(seen.add(e.getKey()));
+            assertEquals("v" + e.getKey(), e.getValue());
+            // removed entries not seen yet are skipped.
+            store.getAndRemove(e.getKey() + 500);
+        }
+        // every entry still present was seen once.
+        for (int i = 0; i < store.segments(); i++)
+            store.keysFor(i, k -> assertTrue(seen.contains(k)));
+
+        seen.clear();
+        for (int i = 0; i < store.segments(); i++)
+            store.entriesFor(i, e -> assertTrue(seen.add(e.key())));
+        assertEquals(store.size(), seen.size());
+    }
+
+    @Test
+    public void keySubscriptionOnLongKeys() {
+        ConcurrentMap<Long, String> map = acquireMap("orders", Long.class, String.class);
+        map.put(42L, "forty-two");
+        map.put(43L, "forty-three");
+
+        List<String> values = new ArrayList<>();
+        registerSubscriber("orders/42?bootstrap=true", String.class, (Subscriber<String>) values::add);
+        map.put(42L, "changed");
+        map.put(43L, "other");
+        map.remove(42L);
+        assertEquals(Arrays.asList("forty-two", "changed", null), values);
+    }
+
+    @Test
+    public void computeCanReadItsOwnSegment() {
+        LongKeyValueStore<String> store = new LongKeyValueStore<>(factoryContext(null));
+        store.getAndPut(1L, "one");
+        assertEquals("one+two", store.compute(2L, (k, v) -> store.get(1L) + "+two"));
+        assertEquals("one", store.computeIfAbsent(1L, k -> {
+            throw new AssertionError("present");
+        }));
+        try {
+            store.compute(3L, (k, v) -> store.getAndPut(4L, "four"));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertNull(store.get(4L));
+    }
+}
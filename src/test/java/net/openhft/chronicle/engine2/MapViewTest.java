@@ -0,0 +1,63 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.*;
+
+public class MapViewTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void conditionalOperations() {
+        ConcurrentMap<String, String> map = acquireMap("conditional", String.class, String.class);
+        List<String> events = new ArrayList<>();
+        registerTopicSubscriber("conditional", String.class, (TopicSubscriber<String>) (topic, message) -> events.add(topic + "=" + message));
+
+        assertTrue(map.isEmpty());
+        assertNull(map.putIfAbsent("a", "1"));
+        assertEquals("1", map.putIfAbsent("a", "2"));
+        assertEquals("1", map.get("a"));
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("b"));
+
+        assertNull(map.replace("b", "1"));
+        assertFalse(map.containsKey("b"));
+        assertEquals("1", map.replace("a", "3"));
+        assertFalse(map.replace("a", "1", "4"));
+        assertTrue(map.replace("a", "3", "4"));
+
+        assertFalse(map.remove("a", "3"));
+        assertTrue(map.remove("a", "4"));
+        assertEquals(0, map.size());
+        assertEquals(Arrays.asList("a=1", "a=3", "a=4", "a=null"), events);
+    }
+
+    @Test
+    public void longKeys() {
+        ConcurrentMap<Long, String> map = acquireMap("longs", Long.class, String.class);
+        Map<Long, String> expected = new HashMap<>();
+        for (long i = 0; i < 100; i++)
+            expected.put(i, "v" + i);
+        map.putAll(expected);
+
+        assertEquals(100, map.size());
+        assertEquals("v5", map.putIfAbsent(5L, "x"));
+        assertTrue(map.replace(5L, "v5", "x"));
+        assertTrue(map.remove(6L, "v6"));
+        expected.put(5L, "x");
+        expected.remove(6L);
+
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,53 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.map.KeyValueStoreInterceptor;
+import net.openhft.chronicle.engine2.map.KeyValueStoreMetrics;
+import net.openhft.chronicle.engine2.map.MetricsKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static net.openhft.chronicle.engine2.map.KeyValueStoreMetrics.Operation.GET;
+import static net.openhft.chronicle.engine2.map.KeyValueStoreMetrics.Operation.PUT;
+import static org.junit.Assert.assertEquals;
+
+public class MetricsKeyValueStoreTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+        registerFactory("", KeyValueStoreInterceptor.class, MetricsKeyValueStore::new);
+    }
+
+    @Test
+    public void recordsOperations() {
+        ConcurrentMap<String, String> map = acquireMap("metered", String.class, String.class);
+        map.put("a", "hello");
+        map.put("b", "world!");
+
+        MetricsKeyValueStore<String, String> store = (MetricsKeyValueStore) acquireAsset("metered", null, null, null)
+                .acquireInterceptor(KeyValueStoreInterceptor.class);
+        assertEquals("hello", store.get("a"));
+        assertEquals(null, store.get("c"));
+        KeyValueStoreMetrics metrics = store.metrics();
+        assertEquals(2, metrics.count(PUT));
+        assertEquals(2, metrics.count(GET));
+        assertEquals(2, metrics.latency(PUT).count());
+        assertEquals(0.5, metrics.hitRate(), 0.0);
+        assertEquals((5 + 6 + 5) / 3.0, metrics.averageValueSize(), 1e-9);
+    }
+
+    @Test
+    public void computeIfAbsentOfAPresentKeyIsAGet() {
+        acquireMap("metered", String.class, String.class);
+        MetricsKeyValueStore<String, String> store = (MetricsKeyValueStore) acquireAsset("metered", null, null, null)
+                .acquireInterceptor(KeyValueStoreInterceptor.class);
+        assertEquals("one", store.computeIfAbsent("a", k -> "one"));
+        assertEquals("one", store.computeIfAbsent("a", k -> "two"));
+        KeyValueStoreMetrics metrics = store.metrics();
+        assertEquals(1, metrics.count(PUT));
+        assertEquals(1, metrics.count(GET));
+        assertEquals(1, metrics.hits());
+    }
+}
@@ -0,0 +1,87 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Publisher;
+import net.openhft.chronicle.engine2.api.Subscriber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PublisherTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void fanOutInOrderPerPublisher() throws InterruptedException {
+        Publisher<String> publisher = acquirePublisher("events", String.class);
+        publisher.publish("no one listening");
+
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        Subscriber<String> subscriber = message -> {
+            String[] parts = message.split(":");
+            received.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(Integer.parseInt(parts[1]));
+        };
+        registerSubscriber("events", String.class, subscriber);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String name = "thread-" + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++)
+                    publisher.publish(name + ":" + i);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(4, received.size());
+        for (List<Integer> sequence : received.values()) {
+            assertEquals(10000, sequence.size());
+            for (int i = 0; i < 10000; i++)
+                assertEquals(i, (int) sequence.get(i));
+        }
+        assertSame(publisher, acquirePublisher("events", String.class));
+        unregisterSubscriber("events", String.class, subscriber);
+    }
+
+    @Test(timeout = 5000)
+    public void subscriberCanPublish() {
+        Publisher<String> publisher = acquirePublisher("echo", String.class);
+        List<String> received = new ArrayList<>();
+        registerSubscriber("echo", String.class, (Subscriber<String>) message -> {
+            received.add(message);
+            if (message.startsWith("ping"))
+                publisher.publish("pong" + message.substring(4));
+        });
+        publisher.publish("ping-1");
+        publisher.publish("ping-2");
+        assertEquals("[ping-1, pong-1, ping-2, pong-2]", received.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void subscriberCanPublishWhenTheBufferIsFull() {
+        acquireAsset("burst?bufferSize=1", Publisher.class, String.class, null);
+        Publisher<String> publisher = acquirePublisher("burst", String.class);
+        List<String> received = new ArrayList<>();
+        registerSubscriber("burst", String.class, (Subscriber<String>) message -> {
+            received.add(message);
+            if (message.equals("start"))
+                for (int i = 0; i < 5; i++)
+                    publisher.publish("event-" + i);
+        });
+        publisher.publish("start");
+        publisher.publish("end");
+        assertEquals("[start, event-0, event-1, event-2, event-3, event-4, end]", received.toString());
+    }
+}
@@ -0,0 +1,29 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.QueryOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryOptionsTest {
+    @Test
+    public void parsesOnce() {
+        QueryOptions options = QueryOptions.of("putReturnsNull=true&bootstrap&throttle=50");
+        assertSame(options, QueryOptions.of("putReturnsNull=true&bootstrap&throttle=50"));
+        assertTrue(options.putReturnsNull());
+        assertFalse(options.removeReturnsNull());
+        assertTrue(options.bootstrap());
+        assertEquals(50, options.getLong("Throttle", 0));
+        assertEquals(-1, options.getLong("missing", -1));
+        assertEquals(50, options.getMillis("throttle", 0));
+        assertEquals(2000, QueryOptions.of("throttle=2s").getMillis("throttle", 0));
+    }
+
+    @Test
+    public void noFalseMatches() {
+        QueryOptions options = QueryOptions.of("nobootstrap=true&putReturnsNull=truex");
+        assertFalse(options.bootstrap());
+        assertFalse(options.putReturnsNull());
+        assertSame(QueryOptions.NONE, QueryOptions.of(""));
+    }
+}
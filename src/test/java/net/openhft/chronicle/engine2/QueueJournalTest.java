@@ -0,0 +1,127 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.ChronicleQueueBuilder;
+import net.openhft.chronicle.engine.queue.LocalQueueView;
+import net.openhft.chronicle.engine.queue.QueueView;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.api.map.KeyValueStoreInterceptor;
+import net.openhft.chronicle.engine2.map.QueueJournal;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
+import static org.junit.Assert.*;
+
+public class QueueJournalTest {
+    private final List<String> paths = new ArrayList<>();
+    private final List<QueueView> queues = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @After
+    public void tearDown() {
+        queues.forEach(QueueView::close);
+        for (String path : paths) {
+            new File(path + ".data").delete();
+            new File(path + ".index").delete();
+        }
+    }
+
+    QueueView queue(String name) throws IOException {
+        String path = System.getProperty("java.io.tmpdir") + "/" + name + "-" + System.nanoTime();
+        paths.add(path);
+        QueueView queue = new LocalQueueView(ChronicleQueueBuilder.indexed(path).build());
+        queues.add(queue);
+        return queue;
+    }
+
+    static VanillaKeyValueStore<String, String> newStore() {
+        return new VanillaKeyValueStore<>(factoryContext(null), 4);
+    }
+
+    @Test
+    public void replayWithSnapshot() throws IOException {
+        QueueView journalQueue = queue("journal");
+        QueueView snapshotQueue = queue("snapshot");
+        registerFactory("", KeyValueStoreInterceptor.class,
+                context -> new QueueJournal(context, journalQueue));
+
+        ConcurrentMap<String, String> map = acquireMap("journalled", String.class, String.class);
+        for (int i = 0; i < 100; i++)
+            map.put("key-" + i, "value-" + i);
+        map.remove("key-1");
+        assertNull(map.putIfAbsent("key-100", "value-100"));
+        assertNotNull(map.putIfAbsent("key-100", "ignored"));
+        map.compute("key-4", (k, v) -> v + "!");
+
+        QueueJournal<String, String> journal = new QueueJournal<>(newStore(), journalQueue, String.class, String.class);
+        VanillaKeyValueStore<String, String> replayed = newStore();
+        journal.replay(replayed, null);
+        assertEquals(100, replayed.size());
+        assertEquals("value-100", replayed.get("key-100"));
+        assertEquals("value-4!", replayed.get("key-4"));
+
+        // snapshot twice into the same queue, the last one is used
+        new QueueJournal<>(replayed, journalQueue, String.class, String.class).snapshot(snapshotQueue);
+        map.put("key-5", "before second snapshot");
+        replayed.put("key-5", "before second snapshot");
+        new QueueJournal<>(replayed, journalQueue, String.class, String.class).snapshot(snapshotQueue);
+
+        map.put("key-2", "changed");
+        map.remove("key-3");
+
+        KeyValueStore<String, String> rebuilt = newStore();
+        journal.replay(rebuilt, snapshotQueue);
+        assertEquals(99, rebuilt.size());
+        assertEquals("changed", rebuilt.get("key-2"));
+        assertEquals("before second snapshot", rebuilt.get("key-5"));
+        assertNull(rebuilt.get("key-1"));
+        assertNull(rebuilt.get("key-3"));
+        assertEquals("value-99", rebuilt.get("key-99"));
+
+        map.clear();
+        map.put("after", "clear");
+        KeyValueStore<String, String> cleared = newStore();
+        journal.replay(cleared, snapshotQueue);
+        assertEquals(1, cleared.size());
+        assertEquals("clear", cleared.get("after"));
+    }
+
+    @Test(timeout = 30000)
+    public void concurrentWritersJournalInStoreOrder() throws Exception {
+        QueueView journalQueue = queue("journal");
+        VanillaKeyValueStore<String, String> store = newStore();
+        QueueJournal<String, String> journal = new QueueJournal<>(store, journalQueue, String.class, String.class);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String value = "thread-" + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; i++)
+                    journal.put("key-" + (i % 10), value + "-" + i);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        VanillaKeyValueStore<String, String> replayed = newStore();
+        journal.replay(replayed, null);
+        assertEquals(store.size(), replayed.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals(store.get("key-" + i), replayed.get("key-" + i));
+    }
+}
@@ -0,0 +1,103 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Publisher;
+import net.openhft.chronicle.engine2.api.Session;
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.remote.RemoteSession;
+import net.openhft.chronicle.engine2.server.SessionServerEndpoint;
+import net.openhft.chronicle.engine2.session.VanillaSession;
+import net.openhft.chronicle.wire.TextWire;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class RemoteSessionTest {
+    private VanillaSession serverSession;
+    private SessionServerEndpoint endpoint;
+    private RemoteSession session;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSession = new VanillaSession();
+        endpoint = new SessionServerEndpoint(serverSession, TextWire.class);
+        session = new RemoteSession("localhost", endpoint.getPort(), (byte) 2, TextWire::new);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        session.close();
+        endpoint.close();
+        serverSession.close();
+    }
+
+    @Test(timeout = 20000)
+    public void mapAndEntrySet() {
+        ConcurrentMap<String, String> map = session.acquireMap("group/map", String.class, String.class);
+        assertNull(map.put("hello", "world"));
+        assertEquals("world", map.put("hello", "world2"));
+        assertEquals("world2", map.get("hello"));
+        assertNull(map.get("nothing"));
+        assertTrue(map.containsKey("hello"));
+        assertNull(map.putIfAbsent("bye", "now"));
+        assertTrue(map.replace("bye", "now", "then"));
+        assertFalse(map.remove("bye", "now"));
+        assertEquals(2, map.size());
+
+        // the same map on the server
+        Session local = serverSession;
+        assertEquals("then", local.acquireMap("group/map", String.class, String.class).get("bye"));
+
+        Map<String, String> copy = new HashMap<>();
+        for (Map.Entry<String, String> e : map.entrySet())
+            copy.put(e.getKey(), e.getValue());
+        assertEquals(2, copy.size());
+        assertEquals("then", copy.get("bye"));
+
+        map.clear();
+        assertEquals(0, map.size());
+    }
+
+    @Test(timeout = 20000)
+    public void publishAndSubscribe() throws InterruptedException {
+        serverSession.acquirePublisher("group/events", String.class);
+        List<String> received = new CopyOnWriteArrayList<>();
+        Subscriber<String> subscriber = received::add;
+        session.register("group/events", String.class, subscriber);
+
+        Publisher<String> publisher = session.acquirePublisher("group/events", String.class);
+        for (int i = 0; i < 5; i++)
+            publisher.publish("event-" + i);
+
+        while (received.size() < 5)
+            Thread.sleep(10);
+        for (int i = 0; i < 5; i++)
+            assertEquals("event-" + i, received.get(i));
+
+        session.unregister("group/events", String.class, subscriber);
+    }
+
+    @Test(timeout = 20000)
+    public void typesNotAllowedAreRejected() {
+        ConcurrentMap<String, CharSequence> chars = session.acquireMap("group/chars", String.class, CharSequence.class);
+        try {
+            chars.put("hello", "world");
+            fail();
+        } catch (RuntimeException expected) {
+            // CharSequence hasn't been allowed.
+        }
+
+        // the connection is still usable.
+        ConcurrentMap<String, String> map = session.acquireMap("group/map", String.class, String.class);
+        assertNull(map.put("hello", "world"));
+        assertEquals("world", map.get("hello"));
+    }
+}
@@ -0,0 +1,57 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
+import static org.junit.Assert.*;
+
+public class SegmentSpliteratorTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+        registerFactory("", KeyValueStore.class, context -> new VanillaKeyValueStore(context, 8));
+    }
+
+    @Test
+    public void splitsBySegment() {
+        ConcurrentMap<String, Integer> map = acquireMap("numbers", String.class, Integer.class);
+        for (int i = 0; i < 10000; i++)
+            map.put("key-" + i, i);
+
+        Set<Map.Entry<String, Integer>> entries = map.entrySet();
+        Spliterator<Map.Entry<String, Integer>> spliterator = entries.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.CONCURRENT));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(10000, spliterator.estimateSize());
+
+        Spliterator<Map.Entry<String, Integer>> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(10000, prefix.estimateSize() + spliterator.estimateSize());
+        assertTrue(prefix.estimateSize() > 0 && spliterator.estimateSize() > 0);
+
+        assertEquals(49995000L, entries.parallelStream().mapToLong(Map.Entry::getValue).sum());
+        Map<String, Integer> copy = entries.parallelStream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals(map, copy);
+    }
+
+    @Test
+    public void singleSegmentSplitsItsEntries() {
+        KeyValueStore<String, Integer> store = new VanillaKeyValueStore<>(factoryContext(null), 1);
+        for (int i = 0; i < 100; i++)
+            store.put("key-" + i, i);
+        Spliterator<Map.Entry<String, Integer>> spliterator = store.entrySetSpliterator();
+        Spliterator<Map.Entry<String, Integer>> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(100, prefix.estimateSize() + spliterator.estimateSize());
+    }
+}
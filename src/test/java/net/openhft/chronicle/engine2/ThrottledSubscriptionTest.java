@@ -0,0 +1,42 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.TopicSubscriber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThrottledSubscriptionTest {
+    @Before
+    public void setUp() {
+        resetChassis();
+    }
+
+    @Test
+    public void latestValuePerInterval() throws InterruptedException {
+        ConcurrentMap<String, String> map = acquireMap("ticks", String.class, String.class);
+        List<String> received = new CopyOnWriteArrayList<>();
+        TopicSubscriber<String> subscriber = (topic, message) -> received.add(topic + "=" + message);
+        registerTopicSubscriber("ticks?throttle=50ms", String.class, subscriber);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++)
+            map.put("price", "" + i);
+        long time = System.currentTimeMillis() - start;
+        Thread.sleep(200);
+
+        assertTrue(received.toString(), received.size() <= time / 50 + 2);
+        assertEquals("price=99999", received.get(received.size() - 1));
+
+        unregisterTopicSubscriber("ticks", String.class, subscriber);
+        map.put("price", "late");
+        Thread.sleep(100);
+        assertEquals("price=99999", received.get(received.size() - 1));
+    }
+}
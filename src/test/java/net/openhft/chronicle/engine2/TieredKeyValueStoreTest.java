@@ -0,0 +1,87 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine.TestMarshallable;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.map.TieredKeyValueStore;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.Test;
+
+import static net.openhft.chronicle.engine2.api.FactoryContext.factoryContext;
+import static org.junit.Assert.*;
+
+public class TieredKeyValueStoreTest {
+    @Test
+    public void hotKeysStayInTheHotTier() {
+        KeyValueStore<String, String> cold = new VanillaKeyValueStore<>(factoryContext(null));
+        for (int i = 0; i < 100; i++)
+            cold.put("key-" + i, "value-" + i);
+        TieredKeyValueStore<String, String> tiered = new TieredKeyValueStore<>(factoryContext(null).item(cold), 10);
+
+        // ten hot keys read many times, the rest once.
+        for (int n = 0; n < 20; n++)
+            for (int i = 0; i < 10; i++)
+                assertEquals("value-" + i, tiered.get("key-" + i));
+        for (int i = 10; i < 100; i++)
+            assertEquals("value-" + i, tiered.get("key-" + i));
+        assertEquals(10, tiered.hotSize());
+
+        long misses = tiered.misses();
+        for (int i = 0; i < 10; i++)
+            tiered.get("key-" + i);
+        assertEquals(misses, tiered.misses());
+
+        tiered.put("key-1", "changed");
+        assertEquals("changed", tiered.get("key-1"));
+        tiered.remove("key-2");
+        assertNull(tiered.get("key-2"));
+    }
+
+    @Test
+    public void unchangedEntriesStayHot() {
+        KeyValueStore<String, String> cold = new VanillaKeyValueStore<>(factoryContext(null));
+        cold.put("key", "value");
+        TieredKeyValueStore<String, String> tiered = new TieredKeyValueStore<>(factoryContext(null).item(cold), 10);
+        assertEquals("value", tiered.get("key"));
+        long misses = tiered.misses();
+
+        assertEquals("value", tiered.computeIfAbsent("key", k -> "other"));
+        assertEquals("value", tiered.compute("key", (k, v) -> v));
+        assertEquals("value", tiered.get("key"));
+        assertEquals(misses, tiered.misses());
+
+        assertEquals("value!", tiered.merge("key", "!", String::concat));
+        assertEquals("value!", tiered.get("key"));
+        assertEquals(misses + 1, tiered.misses());
+    }
+
+    @Test
+    public void getUsingCopiesOutOfTheHotTier() {
+        KeyValueStore<String, TestMarshallable> cold = new VanillaKeyValueStore<>(factoryContext(null));
+        TestMarshallable value = new TestMarshallable();
+        value.setName(new StringBuilder("order"));
+        value.setCount(3);
+        cold.put("key", value);
+        TieredKeyValueStore<String, TestMarshallable> tiered = new TieredKeyValueStore<>(factoryContext(null).item(cold), 10);
+
+        for (int i = 0; i < 2; i++) {
+            TestMarshallable using = new TestMarshallable();
+            assertSame(using, tiered.getUsing("key", using));
+            assertEquals("order", using.getName().toString());
+            using.setCount(99);
+        }
+        assertEquals(3, tiered.get("key").getCount());
+    }
+
+    @Test
+    public void rewrittenKeysDontCrowdOutTheHotTier() {
+        KeyValueStore<String, String> cold = new VanillaKeyValueStore<>(factoryContext(null));
+        TieredKeyValueStore<String, String> tiered = new TieredKeyValueStore<>(factoryContext(null).item(cold), 2);
+        for (int i = 0; i < 1000; i++) {
+            tiered.put("key", "value-" + i);
+            assertEquals("value-" + i, tiered.get("key"));
+        }
+        cold.put("other", "value");
+        assertEquals("value", tiered.get("other"));
+        assertEquals(2, tiered.hotSize());
+    }
+}
@@ -0,0 +1,42 @@
+package net.openhft.chronicle.engine2;
+
+import net.openhft.chronicle.engine2.api.Subscriber;
+import net.openhft.chronicle.engine2.api.map.KeyValueStore;
+import net.openhft.chronicle.engine2.map.VanillaKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.openhft.chronicle.engine2.Chassis.*;
+import static org.junit.Assert.assertEquals;
+
+public class VanillaKeyValueStoreTest {
+    static final int SEGMENTS = 8;
+
+    @Before
+    public void setUp() {
+        resetChassis();
+        registerFactory("", KeyValueStore.class, context -> new VanillaKeyValueStore(context, SEGMENTS));
+    }
+
+    @Test
+    public void segmentedBulkOperations() {
+        ConcurrentMap<String, String> map = acquireMap("segmented?putReturnsNull=true", String.class, String.class);
+        for (int i = 0; i < 1000; i++)
+            map.put("key-" + i, "value-" + i);
+
+        assertEquals(1000, map.size());
+        assertEquals(1000, map.entrySet().size());
+        assertEquals(1000, map.entrySet().stream().count());
+
+        Set<String> keys = new TreeSet<>();
+        registerSubscriber("segmented?bootstrap=true", String.class, (Subscriber<String>) keys::add);
+        assertEquals(1000, keys.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,149 @@
+package net.openhft.chronicle.map;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.engine.TestMarshallable;
+import net.openhft.chronicle.wire.BinaryWire;
+import net.openhft.chronicle.wire.RawWire;
+import net.openhft.chronicle.wire.TextWire;
+import net.openhft.chronicle.wire.Wire;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class EngineCodecTest {
+    private final Class<? extends Wire> wireType;
+
+    public EngineCodecTest(Class<? extends Wire> wireType) {
+        this.wireType = wireType;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> wireTypes() {
+        return Arrays.asList(new Object[][]{{TextWire.class}, {BinaryWire.class}, {RawWire.class}});
+    }
+
+    private <E> E roundTrip(EngineCodec<E> codec, E e, E using) {
+        Bytes<ByteBuffer> bytes = Bytes.elasticByteBuffer();
+        Wire wire = Wire.bytesToWire(wireType).apply(bytes);
+        codec.writeTo(wire, e);
+        bytes.limit(bytes.position());
+        bytes.position(0);
+        return codec.readFrom(wire, using);
+    }
+
+    @Test
+    public void codecFor() {
+        assertTrue(EngineCodec.codecFor(Point.class) instanceof BytesMarshallableCodec);
+        assertTrue(EngineCodec.codecFor(TestMarshallable.class) instanceof MarshallableCodec);
+        assertTrue(EngineCodec.codecFor(CharSequence.class) instanceof CharSequenceCodec);
+        assertTrue(EngineCodec.codecFor(Long.class) instanceof ObjectWireCodec);
+    }
+
+    @Test
+    public void bytesMarshallable() {
+        EngineCodec<Point> codec = EngineCodec.codecFor(Point.class);
+        Point using = new Point(0, 0);
+        Point read = roundTrip(codec, new Point(3, -4), using);
+        assertSame(using, read);
+        assertEquals(3, read.x);
+        assertEquals(-4, read.y);
+        assertEquals(7, roundTrip(codec, new Point(7, 8), null).x);
+    }
+
+    @Test
+    public void objectWire() {
+        assertEquals(123456789L, (long) roundTrip(EngineCodec.codecFor(Long.class), 123456789L, null));
+        assertEquals(1.5, roundTrip(EngineCodec.codecFor(Double.class), 1.5, null), 0.0);
+    }
+
+    @Test
+    public void text() {
+        EngineCodec<StringBuilder> codec = EngineCodec.codecFor(StringBuilder.class);
+        StringBuilder using = new StringBuilder();
+        assertSame(using, roundTrip(codec, new StringBuilder("hello"), using));
+        assertEquals("hello", using.toString());
+        assertEquals("world", roundTrip(EngineCodec.codecFor(String.class), "world", null));
+    }
+
+    @Test
+    public void engineMap() throws IOException {
+        Map<byte[], byte[]> underlying = ChronicleMapBuilder.of(byte[].class, byte[].class)
+                .entries(100).create();
+        EngineMap<Long, TestMarshallable> map = new EngineMap<>(underlying, Long.class,
+                TestMarshallable.class, wireType);
+
+        TestMarshallable tm = new TestMarshallable();
+        tm.setName(new StringBuilder("one"));
+        tm.setCount(1);
+        assertNull(map.put(1L, tm));
+
+        TestMarshallable using = new TestMarshallable();
+        assertSame(using, map.getUsing(1L, using));
+        assertEquals("one", using.getName().toString());
+        assertEquals(1, using.getCount());
+
+        assertNull(map.getUsing(2L, using));
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(1L));
+        assertEquals(1, (long) map.keySet().iterator().next());
+    }
+
+    @Test
+    public void acquireUsingAndGetUsing() throws IOException {
+        Map<byte[], byte[]> underlying = ChronicleMapBuilder.of(byte[].class, byte[].class)
+                .entries(100).create();
+        EngineMap<String, Point> map = new EngineMap<>(underlying, String.class, Point.class, wireType);
+
+        Point acquired = new Point(5, 6);
+        assertSame(acquired, map.acquireUsing("p", acquired));
+        assertEquals(5, map.get("p").x);
+
+        map.put("p", new Point(1, 2));
+        Point using = new Point();
+        for (int i = 0; i < 3; i++) {
+            assertSame(using, map.getUsing("p", using));
+            assertEquals(1, using.x);
+            assertEquals(2, using.y);
+        }
+        assertSame(using, map.acquireUsing("p", using));
+        assertEquals(2, using.y);
+
+        // no contexts, so nothing to visit
+        map.forEachEntry(c -> fail());
+        assertFalse(map.forEachEntryWhile(c -> true));
+    }
+
+    static class Point implements BytesMarshallable {
+        long x, y;
+
+        Point() {
+        }
+
+        Point(long x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void readMarshallable(Bytes in) {
+            x = in.readLong();
+            y = in.readLong();
+        }
+
+        @Override
+        public void writeMarshallable(Bytes out) {
+            out.writeLong(x);
+            out.writeLong(y);
+        }
+    }
+}